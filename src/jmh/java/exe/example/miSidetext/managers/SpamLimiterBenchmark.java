@@ -0,0 +1,84 @@
+package exe.example.miSidetext.managers;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 刷屏限制器的并发基准测试 - 多个线程同时记录同一个玩家的消息（最坏的争用情况），
+ * 以及同时记录大量不同玩家的消息（正常的聊天负载）。
+ * 运行：mvn -P jmh package exec:exec（已带 -prof gc，报告每次调用的分配量）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class SpamLimiterBenchmark {
+
+    private static final int PLAYER_COUNT = 4096; // 必须是2的幂
+
+    @Param({"5"})
+    private int threshold;
+
+    private SpamLimiter limiter;
+    private UUID sharedPlayer;
+    private UUID[] players;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = new SpamLimiter(threshold, 3000);
+        sharedPlayer = UUID.randomUUID();
+        players = new UUID[PLAYER_COUNT];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = UUID.randomUUID();
+        }
+
+        // 预先创建所有玩家的缓冲区，只测量稳定状态下的记录开销
+        long now = System.currentTimeMillis();
+        limiter.record(sharedPlayer, now);
+        for (UUID player : players) {
+            limiter.record(player, now);
+        }
+    }
+
+    /**
+     * 每个线程轮流选取玩家，起点随机，使各线程分散在不同的玩家上
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            next = ThreadLocalRandom.current().nextInt(PLAYER_COUNT);
+        }
+    }
+
+    @Benchmark
+    public boolean onePlayer() {
+        return limiter.record(sharedPlayer, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public boolean manyPlayers(Cursor cursor) {
+        UUID player = players[cursor.next++ & (PLAYER_COUNT - 1)];
+        return limiter.record(player, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,139 @@
+package exe.example.miSidetext;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.bukkit.Particle;
+import org.bukkit.configuration.file.FileConfiguration;
+
+/**
+ * 配置文件的不可变快照 - 启动和重载时解析、校验一次，热路径直接读取字段，
+ * 不再按字符串路径查找YAML，也不会在生成效果时才发现无效的值
+ * @param sideText 侧边文本设置
+ * @param sounds 声音效果设置
+ * @param particles 粒子效果设置
+ */
+public record Config(SideText sideText, Sounds sounds, Particles particles) {
+
+    // 声音名称：可选的命名空间加上小写的资源路径
+    private static final Pattern SOUND_KEY = Pattern.compile("([a-z0-9_.-]+:)?[a-z0-9_./-]+");
+
+    /**
+     * 侧边文本设置
+     * @param enabled 是否启用侧边文本效果
+     * @param typingSpeed 默认打字速度（毫秒/字符）
+     * @param bounceHeight 默认跳动高度
+     * @param bouncePeriod 跳动周期（tick）
+     * @param fallDuration 默认掉落持续时间（秒）
+     * @param lineMode 是否按行渲染
+     * @param fadeIn 字符出现时是否淡入
+     */
+    public record SideText(boolean enabled, long typingSpeed, double bounceHeight, double bouncePeriod,
+                           double fallDuration, boolean lineMode, boolean fadeIn) {
+    }
+
+    /**
+     * 声音效果设置
+     */
+    public record Sounds(boolean enabled, String clickSound, float volume, float pitch) {
+    }
+
+    /**
+     * 粒子效果设置
+     */
+    public record Particles(boolean enabled, Particle particle, int count) {
+    }
+
+    /**
+     * 解析并校验配置，无效的值使用默认值代替
+     * @param errors 收集无效配置项的说明
+     */
+    public static Config parse(FileConfiguration config, List<String> errors) {
+        Parser parser = new Parser(config, errors);
+
+        String renderMode = config.getString("side-text.render-mode", "token");
+        if (!"token".equalsIgnoreCase(renderMode) && !"line".equalsIgnoreCase(renderMode)) {
+            errors.add("side-text.render-mode 无效: " + renderMode + "，使用 token");
+            renderMode = "token";
+        }
+        SideText sideText = new SideText(
+            config.getBoolean("side-text.enabled", true),
+            parser.positiveLong("side-text.typing-speed", 100),
+            parser.nonNegative("side-text.bounce-height", 0.1),
+            parser.positive("side-text.bounce-period", 0.5) * 20,
+            parser.nonNegative("side-text.fall-duration", 3.0),
+            "line".equalsIgnoreCase(renderMode),
+            config.getBoolean("side-text.fade-in-effect", true));
+
+        String clickSound = config.getString("sound-effects.click-sound", "block.stone_button.click_on");
+        if (clickSound == null || !SOUND_KEY.matcher(clickSound).matches()) {
+            errors.add("sound-effects.click-sound 无效: " + clickSound + "，使用 block.stone_button.click_on");
+            clickSound = "block.stone_button.click_on";
+        }
+        Sounds sounds = new Sounds(
+            config.getBoolean("sound-effects.enabled", true),
+            clickSound,
+            (float) parser.nonNegative("sound-effects.volume", 1.0),
+            (float) parser.range("sound-effects.pitch", 1.0, 0.5, 2.0));
+
+        String particleType = config.getString("particle-effects.particle-type", "END_ROD");
+        Particle particle;
+        try {
+            particle = Particle.valueOf(particleType.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            errors.add("particle-effects.particle-type 无效: " + particleType + "，使用 END_ROD");
+            particle = Particle.END_ROD;
+        }
+        int count = config.getInt("particle-effects.particle-count", 3);
+        if (count < 0) {
+            errors.add("particle-effects.particle-count 不能为负数: " + count + "，使用 3");
+            count = 3;
+        }
+        Particles particles = new Particles(config.getBoolean("particle-effects.enabled", true), particle, count);
+
+        return new Config(sideText, sounds, particles);
+    }
+
+    /**
+     * 数值配置项的读取和范围校验
+     */
+    private record Parser(FileConfiguration config, List<String> errors) {
+
+        double positive(String path, double fallback) {
+            double value = config.getDouble(path, fallback);
+            if (!(value > 0) || Double.isInfinite(value)) {
+                errors.add(path + " 必须大于0: " + config.get(path) + "，使用 " + fallback);
+                return fallback;
+            }
+            return value;
+        }
+
+        double nonNegative(String path, double fallback) {
+            double value = config.getDouble(path, fallback);
+            if (!(value >= 0) || Double.isInfinite(value)) {
+                errors.add(path + " 不能为负数: " + config.get(path) + "，使用 " + fallback);
+                return fallback;
+            }
+            return value;
+        }
+
+        long positiveLong(String path, long fallback) {
+            long value = config.getLong(path, fallback);
+            if (value <= 0) {
+                errors.add(path + " 必须大于0: " + config.get(path) + "，使用 " + fallback);
+                return fallback;
+            }
+            return value;
+        }
+
+        double range(String path, double fallback, double min, double max) {
+            double value = config.getDouble(path, fallback);
+            if (!(value >= min && value <= max)) {
+                errors.add(path + " 必须在 " + min + " 到 " + max + " 之间: " + config.get(path) + "，使用 " + fallback);
+                return fallback;
+            }
+            return value;
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package exe.example.miSidetext;
 
 import exe.example.miSidetext.listeners.ChatListener;
+import exe.example.miSidetext.listeners.PlayerPreferencesListener;
+import exe.example.miSidetext.listeners.WorldChangeListener;
+import exe.example.miSidetext.managers.AnimationManager;
 import exe.example.miSidetext.managers.ChatManager;
 import exe.example.miSidetext.managers.CommandManager;
 import exe.example.miSidetext.managers.PerformanceTestManager;
 import exe.example.miSidetext.managers.PlayerPreferencesManager;
+import exe.example.miSidetext.managers.PlayerSpatialIndex;
+import exe.example.miSidetext.managers.QualityGovernor;
 import exe.example.miSidetext.managers.SideTextManager;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.bukkit.plugin.java.JavaPlugin;
 
 public final class MiSidetext extends JavaPlugin {
 
     private static MiSidetext instance;
+    // 当前的配置快照，重载时整体替换
+    private volatile Config settings;
+    private AnimationManager animationManager;
+    private QualityGovernor qualityGovernor;
+    private PlayerSpatialIndex playerSpatialIndex;
     private SideTextManager sideTextManager;
     private PlayerPreferencesManager playerPreferencesManager;
     private ChatManager chatManager;
@@ -23,8 +36,12 @@ public final class MiSidetext extends JavaPlugin {
         
         // 保存默认配置
         saveDefaultConfig();
+        reloadSettings();
         
         // 初始化管理器
+        animationManager = new AnimationManager(this);
+        qualityGovernor = new QualityGovernor(this);
+        playerSpatialIndex = new PlayerSpatialIndex(this);
         sideTextManager = new SideTextManager(this);
         playerPreferencesManager = new PlayerPreferencesManager(this);
         chatManager = new ChatManager(this);
@@ -32,6 +49,8 @@ public final class MiSidetext extends JavaPlugin {
         
         // 注册监听器
         getServer().getPluginManager().registerEvents(new ChatListener(this), this);
+        getServer().getPluginManager().registerEvents(new WorldChangeListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerPreferencesListener(this), this);
         
         // 初始化命令管理器
         new CommandManager(this);
@@ -46,6 +65,15 @@ public final class MiSidetext extends JavaPlugin {
         if (sideTextManager != null) {
             sideTextManager.cleanup();
         }
+        if (animationManager != null) {
+            animationManager.cleanup();
+        }
+        if (qualityGovernor != null) {
+            qualityGovernor.cleanup();
+        }
+        if (playerSpatialIndex != null) {
+            playerSpatialIndex.cleanup();
+        }
         if (playerPreferencesManager != null) {
             playerPreferencesManager.cleanup();
         }
@@ -66,6 +94,72 @@ public final class MiSidetext extends JavaPlugin {
         return instance;
     }
     
+    /**
+     * 获取当前的配置快照（任意线程）
+     */
+    public Config getSettings() {
+        return settings;
+    }
+    
+    /**
+     * 重新读取配置文件并替换配置快照
+     * @return 无效配置项的说明，这些项已使用默认值
+     */
+    public List<String> reloadSettings() {
+        reloadConfig();
+        List<String> errors = new ArrayList<>();
+        boolean reloading = settings != null;
+        settings = Config.parse(getConfig(), errors);
+        for (String error : errors) {
+            getLogger().warning("配置无效: " + error);
+        }
+        if (reloading) {
+            applySettings();
+        }
+        return errors;
+    }
+    
+    /**
+     * 把重载后的配置应用到运行中的管理器和正在进行的动画，不移除任何已显示的实体
+     */
+    private void applySettings() {
+        // 跳动周期由动画引擎统一保存，正在跳动的字符实体下一tick即使用新周期
+        animationManager.loadConfig();
+
+        // 没有保存过设置的玩家改用新的默认值，他们正在跳动的字符实体一并调整
+        int players = playerPreferencesManager.rebaseDefaults();
+        int glyphs = animationManager.retuneDefaultBounce(settings.sideText().bounceHeight());
+
+        // 预算、质量调节和对象池的新限制立即生效
+        qualityGovernor.loadConfig();
+        playerSpatialIndex.loadConfig();
+        sideTextManager.loadConfig();
+        chatManager.reloadConfig();
+
+        getLogger().info(String.format("配置已应用：%d 名使用默认设置的玩家、%d 个跳动中的字符实体已更新", players, glyphs));
+    }
+    
+    /**
+     * 获取动画管理器
+     */
+    public AnimationManager getAnimationManager() {
+        return animationManager;
+    }
+    
+    /**
+     * 获取效果质量调节器
+     */
+    public QualityGovernor getQualityGovernor() {
+        return qualityGovernor;
+    }
+    
+    /**
+     * 获取玩家空间索引
+     */
+    public PlayerSpatialIndex getPlayerSpatialIndex() {
+        return playerSpatialIndex;
+    }
+    
     /**
      * 获取侧边文本管理器
      */
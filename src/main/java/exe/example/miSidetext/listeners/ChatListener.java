@@ -2,13 +2,14 @@ package exe.example.miSidetext.listeners;
 
 import exe.example.miSidetext.MiSidetext;
 import exe.example.miSidetext.managers.ChatManager;
+import exe.example.miSidetext.managers.DuplicateDetector;
 import exe.example.miSidetext.managers.SideTextManager;
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.ArrayList;
@@ -57,21 +58,27 @@ public class ChatListener implements Listener {
             message = message.substring(channel.getPrefix().length()).trim();
         }
         
+        // 检查近似重复的消息，重复时拦截或不生成侧边文本
+        DuplicateDetector.Action duplicateAction = chatManager.checkDuplicate(player, message, channel);
+        if (duplicateAction == DuplicateDetector.Action.BLOCK) {
+            event.setCancelled(true);
+            player.sendMessage(ChatColor.RED + "请不要重复发送相同的消息！");
+            return;
+        }
+        
         // 添加频道前缀显示
         String channelPrefix = getChannelPrefix(channel);
         String formattedMessage = channelPrefix + player.getDisplayName() + ChatColor.WHITE + ": " + message;
         
         // 根据频道调整接收者范围
         if (channel != ChatManager.ChatChannel.GLOBAL) {
-            List<Player> recipients = new ArrayList<>();
             double radius = channel.getRadius();
             
-            // 收集范围内的玩家
-            for (Player recipient : Bukkit.getOnlinePlayers()) {
-                if (recipient.getWorld().equals(player.getWorld()) &&
-                    recipient.getLocation().distance(player.getLocation()) <= radius) {
-                    recipients.add(recipient);
-                }
+            // 从玩家空间索引的快照中收集范围内的玩家，可以在异步聊天线程中安全读取
+            List<Player> recipients = plugin.getPlayerSpatialIndex().nearby(player.getUniqueId(), radius);
+            if (recipients.isEmpty()) {
+                // 刚加入的玩家可能尚未写入快照，至少保证自己能看到消息
+                recipients = List.of(player);
             }
             
             event.getRecipients().clear();
@@ -84,19 +91,30 @@ public class ChatListener implements Listener {
         // 保存聊天记录
         chatManager.logChat(player, message, channel.name());
         
-        // 添加侧边文本效果
+        if (duplicateAction == DuplicateDetector.Action.SUPPRESS) {
+            // 重复的消息照常发送，但不再生成侧边文本
+            return;
+        }
+        
+        // 添加侧边文本效果，只对收到消息的玩家可见
         final String finalMessage = message;
-        final double textScale = channel.getTextScale();
+        final ChatManager.ChatChannel finalChannel = channel;
+        final List<Player> finalRecipients = new ArrayList<>(event.getRecipients());
         
         new BukkitRunnable() {
             @Override
             public void run() {
                 // 在主线程中执行
-                sideTextManager.displaySideText(player, finalMessage, textScale);
+                sideTextManager.displaySideText(player, finalMessage, finalChannel, finalRecipients);
             }
         }.runTask(plugin);
     }
     
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        chatManager.forgetPlayer(event.getPlayer().getUniqueId());
+    }
+    
     /**
      * 确定玩家使用的聊天频道
      */
@@ -0,0 +1,43 @@
+package exe.example.miSidetext.listeners;
+
+import exe.example.miSidetext.MiSidetext;
+import exe.example.miSidetext.managers.PlayerPreferencesManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * 在玩家登录前的异步线程中预加载偏好设置，玩家退出或登录被拒绝时移除
+ */
+public class PlayerPreferencesListener implements Listener {
+
+    private final PlayerPreferencesManager preferencesManager;
+
+    public PlayerPreferencesListener(MiSidetext plugin) {
+        this.preferencesManager = plugin.getPlayerPreferencesManager();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        // 其他插件已拒绝登录时不加载
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            preferencesManager.preload(event.getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLogin(PlayerLoginEvent event) {
+        // 白名单、满员、封禁等在预加载之后拒绝登录的玩家不会触发退出事件
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            preferencesManager.evict(event.getPlayer().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        preferencesManager.evict(event.getPlayer().getUniqueId());
+    }
+}
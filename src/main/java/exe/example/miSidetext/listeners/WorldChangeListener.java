@@ -0,0 +1,85 @@
+package exe.example.miSidetext.listeners;
+
+import exe.example.miSidetext.MiSidetext;
+import exe.example.miSidetext.managers.BlockSolidityCache;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.List;
+
+/**
+ * 监听方块、区块和世界变化，刷新坠落物理使用的方块固体缓存，世界卸载时清理其中的文本效果，
+ * 区块实体和世界加载时检查残留的字符实体
+ */
+public class WorldChangeListener implements Listener {
+
+    private final MiSidetext plugin;
+    private final BlockSolidityCache solidityCache;
+
+    public WorldChangeListener(MiSidetext plugin) {
+        this.plugin = plugin;
+        this.solidityCache = plugin.getAnimationManager().getPhysicsEngine().getSolidityCache();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        solidityCache.invalidateChunk(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        // 区块实体与区块分开异步加载，在实体加载完成后检查
+        plugin.getSideTextManager().getOrphanSweeper().enqueueEntities(event.getEntities());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        plugin.getSideTextManager().getOrphanSweeper().enqueueWorld(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        solidityCache.invalidateWorld(event.getWorld());
+        plugin.getSideTextManager().cleanupWorldEffects(event.getWorld());
+    }
+
+    private void invalidate(List<Block> blocks) {
+        for (Block block : blocks) {
+            invalidate(block);
+        }
+    }
+
+    private void invalidate(Block block) {
+        solidityCache.invalidateBlock(block.getWorld(), block.getX(), block.getZ());
+    }
+}
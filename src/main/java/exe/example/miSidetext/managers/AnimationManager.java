@@ -0,0 +1,564 @@
+package exe.example.miSidetext.managers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.bukkit.entity.Display;
+import org.bukkit.entity.TextDisplay;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.Transformation;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 动画引擎 - 使用单个每tick任务统一驱动所有字符实体的跳动、坠落和渐隐动画，
+ * 避免为每个字符实体单独注册调度任务
+ */
+public class AnimationManager {
+
+    private final MiSidetext plugin;
+    // 坠落物理引擎，所有坠落字符的物理状态集中在其中
+    private final FallPhysicsEngine physicsEngine;
+    // 所有正在动画中的字符实体，按实体UUID索引，保持插入顺序
+    private final Map<UUID, Glyph> glyphs = new LinkedHashMap<>();
+    // 步进过程中（例如回调里）新加入的字符实体，步进结束后再并入
+    private final List<Glyph> pendingGlyphs = new ArrayList<>();
+    private boolean stepping = false;
+    private BukkitTask driverTask;
+    // 动画出错时归还字符实体（对象池、登记表和预算），由侧边文本管理器设置
+    private Consumer<TextDisplay> releaseHandler;
+
+    // 配置参数
+    private int keyframeInterval; // 关键帧间隔（tick），大于1时由客户端在关键帧之间插值
+    private double bouncePeriod; // 跳动周期（tick），所有跳动中的字符实体共用，重载后立即生效
+
+    // 统计数据
+    private long lastStepNanos = 0;
+    private double averageStepNanos = 0;
+    private long peakStepNanos = 0;
+    private long totalSteps = 0;
+
+    public AnimationManager(MiSidetext plugin) {
+        this.plugin = plugin;
+        this.physicsEngine = new FallPhysicsEngine(plugin);
+        loadConfig();
+
+        // 启动统一的动画驱动任务
+        startDriver();
+    }
+
+    /**
+     * 加载配置
+     */
+    public void loadConfig() {
+        // 客户端插值和传送插值的时长上限为59tick
+        this.keyframeInterval = Math.max(1, Math.min(59, plugin.getConfig().getInt("side-text.keyframe-interval", 1)));
+        physicsEngine.setTeleportInterval(keyframeInterval);
+        physicsEngine.loadConfig();
+        this.bouncePeriod = plugin.getSettings().sideText().bouncePeriod();
+    }
+
+    /**
+     * 设置动画出错时归还字符实体的回调
+     */
+    public void setReleaseHandler(Consumer<TextDisplay> releaseHandler) {
+        this.releaseHandler = releaseHandler;
+    }
+
+    /**
+     * 启动动画驱动任务，每个tick推进一次所有字符实体的动画
+     */
+    private void startDriver() {
+        driverTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                step();
+            }
+        }.runTaskTimer(plugin, 1, 1); // 每个刻更新一次
+    }
+
+    /**
+     * 推进所有字符实体的动画状态
+     */
+    private void step() {
+        long start = System.nanoTime();
+
+        // 先统一推进坠落物理，再由各字符实体读取结果
+        physicsEngine.step();
+
+        stepping = true;
+        try {
+            Iterator<Glyph> iterator = glyphs.values().iterator();
+            while (iterator.hasNext()) {
+                Glyph glyph = iterator.next();
+                try {
+                    if (glyph.stopped || !glyph.step()) {
+                        glyph.releaseFall();
+                        iterator.remove();
+                    }
+                } catch (RuntimeException e) {
+                    // 单个字符实体出错时移除它并归还实体，不影响其他字符实体
+                    plugin.getLogger().warning("字符实体动画出错，已结束该实体的动画: " + e);
+                    glyph.releaseFall();
+                    iterator.remove();
+                    glyph.abort();
+                }
+            }
+        } finally {
+            stepping = false;
+        }
+
+        // 并入步进过程中新加入的字符实体
+        for (Glyph glyph : pendingGlyphs) {
+            if (!glyph.stopped) {
+                glyphs.put(glyph.display.getUniqueId(), glyph);
+            } else {
+                glyph.releaseFall();
+            }
+        }
+        pendingGlyphs.clear();
+
+        // 更新统计数据（指数移动平均）
+        long elapsed = System.nanoTime() - start;
+        lastStepNanos = elapsed;
+        peakStepNanos = Math.max(peakStepNanos, elapsed);
+        averageStepNanos = totalSteps == 0 ? elapsed : averageStepNanos * 0.95 + elapsed * 0.05;
+        totalSteps++;
+    }
+
+    /**
+     * 获取字符实体对应的动画状态，不存在时创建
+     */
+    private Glyph getOrCreateGlyph(TextDisplay textDisplay) {
+        Glyph glyph = glyphs.get(textDisplay.getUniqueId());
+        if (glyph != null && !glyph.stopped) {
+            return glyph;
+        }
+        for (Glyph pending : pendingGlyphs) {
+            if (pending.display == textDisplay && !pending.stopped) {
+                return pending;
+            }
+        }
+
+        glyph = new Glyph(textDisplay);
+        if (stepping) {
+            pendingGlyphs.add(glyph);
+        } else {
+            glyphs.put(textDisplay.getUniqueId(), glyph);
+        }
+        return glyph;
+    }
+
+    /**
+     * 应用上下抖动动画，跳动周期使用当前配置
+     */
+    public void startBounce(TextDisplay textDisplay, double bounceHeight, boolean followsDefault) {
+        if (textDisplay == null || textDisplay.isDead()) {
+            return;
+        }
+        getOrCreateGlyph(textDisplay).bounce = new BounceState(bounceHeight, followsDefault);
+    }
+
+    /**
+     * 把使用默认跳动高度的字符实体改为新的默认高度，玩家自定义的高度不变
+     * @return 调整的字符实体数
+     */
+    public int retuneDefaultBounce(double bounceHeight) {
+        int retuned = 0;
+        for (Glyph glyph : glyphs.values()) {
+            retuned += glyph.retuneDefaultBounce(bounceHeight);
+        }
+        for (Glyph glyph : pendingGlyphs) {
+            retuned += glyph.retuneDefaultBounce(bounceHeight);
+        }
+        return retuned;
+    }
+
+    /**
+     * 应用物理坠落动画
+     * @param onLanded 字符着地后执行的回调
+     */
+    public void startFall(TextDisplay textDisplay, Runnable onLanded) {
+        if (textDisplay == null || textDisplay.isDead()) {
+            return;
+        }
+        if (textDisplay.getWorld() == null) {
+            return;
+        }
+        Glyph glyph = getOrCreateGlyph(textDisplay);
+        glyph.releaseFall();
+        glyph.fallHandle = physicsEngine.add(textDisplay);
+        glyph.onLanded = onLanded;
+    }
+
+    /**
+     * 应用渐隐效果
+     * @param onFinished 渐隐结束后执行的回调，为null时直接移除实体
+     */
+    public void startFade(TextDisplay textDisplay, int fadeTicks, Runnable onFinished) {
+        if (textDisplay == null || textDisplay.isDead()) {
+            return;
+        }
+        getOrCreateGlyph(textDisplay).fade = new FadeState(fadeTicks, onFinished);
+    }
+
+    /**
+     * 应用出现效果：实体以低亮度生成，下一个tick恢复正常亮度
+     */
+    public void startFadeIn(TextDisplay textDisplay) {
+        if (textDisplay == null || textDisplay.isDead()) {
+            return;
+        }
+        getOrCreateGlyph(textDisplay).fadeInTicks = 1;
+    }
+
+    /**
+     * 停止所有字符实体的跳动动画，并将其位置复原
+     */
+    public void stopAllBounce() {
+        for (Glyph glyph : glyphs.values()) {
+            if (glyph.bounce != null) {
+                glyph.bounce = null;
+                glyph.transformation.getTranslation().set(0, 0, 0);
+                glyph.display.setTransformation(glyph.transformation);
+            }
+        }
+    }
+
+    /**
+     * 停止字符实体的所有动画（不移除实体）
+     */
+    public void stop(TextDisplay textDisplay) {
+        if (textDisplay == null) {
+            return;
+        }
+        if (stepping) {
+            // 步进过程中不能修改集合，先标记，由步进循环移除
+            Glyph glyph = glyphs.get(textDisplay.getUniqueId());
+            if (glyph != null) {
+                glyph.stopped = true;
+            }
+            pendingGlyphs.removeIf(pending -> {
+                if (pending.display != textDisplay) {
+                    return false;
+                }
+                pending.releaseFall();
+                return true;
+            });
+        } else {
+            Glyph glyph = glyphs.remove(textDisplay.getUniqueId());
+            if (glyph != null) {
+                glyph.releaseFall();
+            }
+        }
+    }
+
+    /**
+     * 获取当前动画中的字符实体数量
+     */
+    public int getActiveGlyphCount() {
+        return glyphs.size();
+    }
+
+    /**
+     * 获取正在坠落的字符实体数量
+     */
+    public int getFallingGlyphCount() {
+        return physicsEngine.getActiveCount();
+    }
+
+    /**
+     * 获取正在渐隐的字符实体数量
+     */
+    public int getFadingGlyphCount() {
+        int count = 0;
+        for (Glyph glyph : glyphs.values()) {
+            if (glyph.fade != null) count++;
+        }
+        return count;
+    }
+
+    /**
+     * 获取最近一次动画步进耗时（纳秒）
+     */
+    public long getLastStepNanos() {
+        return lastStepNanos;
+    }
+
+    /**
+     * 获取动画步进平均耗时（纳秒）
+     */
+    public double getAverageStepNanos() {
+        return averageStepNanos;
+    }
+
+    /**
+     * 获取动画步进峰值耗时（纳秒）
+     */
+    public long getPeakStepNanos() {
+        return peakStepNanos;
+    }
+
+    /**
+     * 获取动画驱动任务已执行的步数
+     */
+    public long getTotalSteps() {
+        return totalSteps;
+    }
+
+    /**
+     * 获取坠落物理引擎
+     */
+    public FallPhysicsEngine getPhysicsEngine() {
+        return physicsEngine;
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        if (driverTask != null) {
+            driverTask.cancel();
+            driverTask = null;
+        }
+        glyphs.clear();
+        pendingGlyphs.clear();
+        physicsEngine.cleanup();
+    }
+
+    /**
+     * 单个字符实体的动画状态，每个tick合并各动画的结果。
+     * 关键帧模式下只在关键帧写入变换，并设置插值时长让客户端平滑过渡到目标
+     */
+    private class Glyph {
+        private final TextDisplay display;
+        private final Transformation transformation;
+        private final float baseScale;
+
+        private BounceState bounce;
+        private int fallHandle = -1; // 坠落物理引擎中的句柄，-1表示未在坠落
+        private Runnable onLanded;
+        private FadeState fade;
+        private int fadeInTicks = 0;
+        private boolean stopped = false;
+
+        private int lastBrightness = -1;
+        private int keyframeCountdown; // 距离下一个关键帧的tick数
+
+        Glyph(TextDisplay display) {
+            this.display = display;
+            this.transformation = display.getTransformation();
+            this.baseScale = transformation.getScale().x();
+            // 错开各字符的关键帧，避免数据包集中在同一tick
+            this.keyframeCountdown = 1 + (int) (Math.random() * keyframeInterval);
+        }
+
+        /**
+         * 推进一个tick
+         * @return 是否继续保留该字符实体的动画
+         */
+        boolean step() {
+            if (display.isDead()) {
+                return false;
+            }
+
+            boolean dirty = false;
+            boolean keyframe = keyframeInterval <= 1 || --keyframeCountdown <= 0;
+            if (keyframe) {
+                keyframeCountdown = keyframeInterval;
+            }
+
+            if (fadeInTicks > 0 && --fadeInTicks == 0) {
+                // 恢复正常亮度
+                display.setBrightness(new Display.Brightness(15, 15));
+            }
+
+            if (bounce != null) {
+                // 只保留Y方向的上下移动效果
+                transformation.getTranslation().set(0, (float) bounce.step(bouncePeriod), 0);
+                dirty = true;
+            }
+
+            if (fallHandle >= 0) {
+                // 读取物理引擎计算的旋转（着地时为轻微倾斜）
+                physicsEngine.writeRotation(fallHandle, transformation.getLeftRotation());
+                if (physicsEngine.isSettled(fallHandle)) {
+                    // 已着地
+                    Runnable landed = onLanded;
+                    releaseFall();
+                    keyframe = true; // 着地姿态立即发送
+                    if (landed != null) {
+                        landed.run();
+                    }
+                } else {
+                    // 保持原始大小不变
+                    transformation.getScale().set(baseScale, baseScale, baseScale);
+                }
+                dirty = true;
+            }
+
+            if (fade != null) {
+                float opacity = fade.step();
+                if (opacity <= 0) {
+                    if (fade.onFinished != null) {
+                        fade.onFinished.run();
+                    } else {
+                        display.remove();
+                    }
+                    return false;
+                }
+
+                // 调整亮度以增强渐隐效果，仅在亮度变化时写入（亮度无法插值，关键帧模式下只在关键帧更新）
+                int level = (int) (opacity * 15);
+                if (keyframe && level != lastBrightness) {
+                    display.setBrightness(new Display.Brightness(level, level));
+                    lastBrightness = level;
+                }
+
+                // 轻微缩小以增强消失感，关键帧模式下以下一个关键帧时的大小为目标
+                float target = keyframeInterval > 1 ? fade.peek(keyframeInterval - 1) : opacity;
+                float scaleFactor = baseScale * target;
+                transformation.getScale().set(scaleFactor, scaleFactor, scaleFactor);
+                dirty = true;
+            }
+
+            if (dirty && keyframe) {
+                if (keyframeInterval > 1) {
+                    display.setInterpolationDelay(0);
+                    display.setInterpolationDuration(keyframeInterval);
+                }
+                display.setTransformation(transformation);
+            }
+
+            return bounce != null || fallHandle >= 0 || fade != null || fadeInTicks > 0;
+        }
+
+        /**
+         * 释放坠落物理引擎中的句柄
+         */
+        void releaseFall() {
+            if (fallHandle >= 0) {
+                physicsEngine.release(fallHandle);
+                fallHandle = -1;
+                onLanded = null;
+            }
+        }
+
+        /**
+         * 动画出错后结束该字符实体：有渐隐完成回调时执行它，否则交给归还回调
+         */
+        void abort() {
+            try {
+                if (fade != null && fade.onFinished != null) {
+                    fade.onFinished.run();
+                } else if (releaseHandler != null) {
+                    releaseHandler.accept(display);
+                } else {
+                    display.remove();
+                }
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("归还出错的字符实体失败: " + e);
+            }
+        }
+
+        /**
+         * 使用默认跳动高度时改为新的默认高度
+         * @return 是否调整（1或0）
+         */
+        int retuneDefaultBounce(double bounceHeight) {
+            if (bounce == null || stopped || !bounce.followsDefault) {
+                return 0;
+            }
+            bounce.bounceHeight = bounceHeight;
+            return 1;
+        }
+    }
+
+    /**
+     * 上下抖动状态 - 多频率正弦波叠加
+     */
+    private static class BounceState {
+        // 平滑因子，使变化更自然
+        private static final double SMOOTH_FACTOR = 0.05;
+
+        private double bounceHeight;
+        private final boolean followsDefault; // 是否使用配置文件中的默认高度
+        // 每个字符随机的基础相位偏移
+        private final double basePhase = Math.random() * 2 * Math.PI;
+
+        private double phase1 = Math.random() * 2 * Math.PI; // 相位
+        private double amplitudeFactor = 0.5 + Math.random() * 0.5; // 振幅因子
+        private double freqFactorY = 1.2 + Math.random() * 0.6; // Y方向频率因子
+
+        private double lastPosY = 0;
+        private double angle = 0; // 累积的主频相位，周期变化时不会跳变
+        private int tick = 0;
+
+        BounceState(double bounceHeight, boolean followsDefault) {
+            this.bounceHeight = bounceHeight;
+            this.followsDefault = followsDefault;
+        }
+
+        /**
+         * 推进一个tick，返回平滑后的Y偏移
+         */
+        double step(double bouncePeriod) {
+            double mainFreq = 1.0 / (bouncePeriod * 0.1);
+            angle += 0.1 * mainFreq; // 调整时间步长以控制整体抖动速度
+
+            double yJitter = (Math.sin(angle * freqFactorY + basePhase) * 0.8 +
+                             Math.sin(angle * 3.0 * freqFactorY + phase1) * 0.3) *
+                            bounceHeight * amplitudeFactor;
+
+            // 应用平滑过渡，避免抖动看起来卡顿
+            lastPosY = lastPosY + (yJitter - lastPosY) * SMOOTH_FACTOR;
+
+            tick++;
+
+            // 每30刻重新计算随机参数，使上下抖动更加自然和随机
+            if (tick % 30 == 0) {
+                phase1 = Math.random() * 2 * Math.PI;
+                freqFactorY = 1.2 + Math.random() * 0.6;
+                amplitudeFactor = 0.5 + Math.random() * 0.5;
+            }
+
+            return lastPosY;
+        }
+    }
+
+    /**
+     * 渐隐状态
+     */
+    private static class FadeState {
+        private final int fadeTicks;
+        private final Runnable onFinished;
+        private int tick = 0;
+
+        FadeState(int fadeTicks, Runnable onFinished) {
+            this.fadeTicks = Math.max(1, fadeTicks);
+            this.onFinished = onFinished;
+        }
+
+        /**
+         * 推进一个tick，返回当前透明度（1.0到0.0线性变化）
+         */
+        float step() {
+            float opacity = 1.0f - (float) tick / fadeTicks;
+            tick++;
+            return Math.max(0, opacity);
+        }
+
+        /**
+         * 预测再推进若干tick后的透明度（不改变状态）
+         */
+        float peek(int ticks) {
+            return Math.max(0, 1.0f - (float) (tick + ticks) / fadeTicks);
+        }
+    }
+}
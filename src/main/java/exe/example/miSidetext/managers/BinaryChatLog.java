@@ -0,0 +1,335 @@
+package exe.example.miSidetext.managers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 二进制聊天日志格式 - 分段文件 chat_<日期>[.<序号>].bin 顺序存放定长头部加变长内容的记录，
+ * 分段关闭时在旁边写入 .idx 索引，按玩家UUID记录频道、时间范围和记录偏移量。
+ * 查询通过内存映射读取，只解码命中的记录，不把整个文件读入堆内存
+ */
+public final class BinaryChatLog {
+
+    private static final int SEGMENT_MAGIC = 0x4D53434C; // "MSCL"
+    private static final int INDEX_MAGIC = 0x4D534349; // "MSCI"
+    private static final short VERSION = 1;
+    // 分段文件头：魔数、版本、保留字段
+    public static final int HEADER_BYTES = 8;
+    // 记录头：记录长度、时间、UUID、频道、名字长度、消息长度
+    private static final int RECORD_HEAD_BYTES = 4 + 8 + 16 + 1 + 2 + 4;
+    // 单个分段的最大字节数，索引中的偏移量使用int
+    public static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE - 1024 * 1024;
+    private static final byte UNKNOWN_CHANNEL = -1;
+    private static final ChatManager.ChatChannel[] CHANNELS = ChatManager.ChatChannel.values();
+
+    private BinaryChatLog() {
+    }
+
+    /**
+     * 写入分段文件头
+     */
+    public static void writeHeader(ByteBuffer buffer) {
+        buffer.clear();
+        buffer.putInt(SEGMENT_MAGIC).putShort(VERSION).putShort((short) 0);
+        buffer.flip();
+    }
+
+    /**
+     * 把一条记录编码到缓冲区，缓冲区容量不足时返回新的缓冲区
+     * @return 已翻转、可直接写出的缓冲区
+     */
+    public static ByteBuffer encode(ByteBuffer buffer, long time, UUID playerId, String channel, String playerName, String message) {
+        byte[] name = playerName.getBytes(StandardCharsets.UTF_8);
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(name.length, Short.MAX_VALUE);
+        int length = RECORD_HEAD_BYTES + nameLength + text.length;
+        if (buffer.capacity() < length) {
+            buffer = ByteBuffer.allocate(Math.max(length, buffer.capacity() * 2));
+        }
+        buffer.clear();
+        buffer.putInt(length - 4)
+            .putLong(time)
+            .putLong(playerId.getMostSignificantBits())
+            .putLong(playerId.getLeastSignificantBits())
+            .put(channelCode(channel))
+            .putShort((short) nameLength)
+            .putInt(text.length)
+            .put(name, 0, nameLength)
+            .put(text);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte channelCode(String channel) {
+        for (ChatManager.ChatChannel value : CHANNELS) {
+            if (value.name().equals(channel)) {
+                return (byte) value.ordinal();
+            }
+        }
+        return UNKNOWN_CHANNEL;
+    }
+
+    private static String channelName(byte code) {
+        return code >= 0 && code < CHANNELS.length ? CHANNELS[code].name() : "UNKNOWN";
+    }
+
+    /**
+     * 频道对应的位掩码，未知频道使用最高位
+     */
+    private static int channelBit(byte code) {
+        return code >= 0 && code < 31 ? 1 << code : 1 << 31;
+    }
+
+    /**
+     * 扫描已有分段，把完整的记录加入索引
+     * @return 最后一条完整记录的结束位置；文件头无效时返回-1
+     */
+    public static long recover(File segment, IndexBuilder index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                return -1;
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_SEGMENT_BYTES));
+            if (data.getInt(0) != SEGMENT_MAGIC) {
+                return -1;
+            }
+            int position = HEADER_BYTES;
+            while (isComplete(data, position)) {
+                index.add(position, data.getLong(position + 4),
+                    new UUID(data.getLong(position + 12), data.getLong(position + 20)), data.get(position + 28));
+                position += 4 + data.getInt(position);
+            }
+            return position;
+        }
+    }
+
+    private static boolean isComplete(ByteBuffer data, int position) {
+        if (position + RECORD_HEAD_BYTES > data.limit()) {
+            return false;
+        }
+        int length = data.getInt(position);
+        return length >= RECORD_HEAD_BYTES - 4 && length <= data.limit() - position - 4;
+    }
+
+    /**
+     * 在分段中查找记录：索引有效时只读取该玩家的记录，否则顺序扫描整个分段
+     * @return 命中的记录，按时间从新到旧排列
+     */
+    public static List<ChatLogSearch.Hit> search(File segment, ChatLogSearch.Query query) throws IOException {
+        List<ChatLogSearch.Hit> hits = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), MAX_SEGMENT_BYTES);
+            if (size < HEADER_BYTES) {
+                return hits;
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (data.getInt(0) != SEGMENT_MAGIC) {
+                return hits;
+            }
+
+            int[] offsets = query.playerId() == null ? null : lookupIndex(indexFile(segment), size, query);
+            if (offsets != null) {
+                for (int offset : offsets) {
+                    if (isComplete(data, offset)) {
+                        match(data, offset, query, hits);
+                    }
+                }
+            } else {
+                int position = HEADER_BYTES;
+                while (isComplete(data, position)) {
+                    match(data, position, query, hits);
+                    position += 4 + data.getInt(position);
+                }
+            }
+        }
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    /**
+     * 从索引中查找玩家的记录偏移量
+     * @return 偏移量数组，玩家或时间范围不匹配时为空数组；索引不存在或已过期时返回null
+     */
+    private static int[] lookupIndex(File indexFile, long segmentSize, ChatLogSearch.Query query) throws IOException {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (index.limit() < 40 || index.getInt() != INDEX_MAGIC || index.getShort() != VERSION) {
+                return null;
+            }
+            index.getShort();
+            long coveredBytes = index.getLong();
+            if (coveredBytes != segmentSize) {
+                // 分段在写入索引后又有追加，索引已过期
+                return null;
+            }
+            index.getInt(); // 记录数
+            index.getLong(); // 最早时间
+            long segmentMaxTime = index.getLong();
+            int players = index.getInt();
+            if (segmentMaxTime < query.since()) {
+                return new int[0];
+            }
+
+            long most = query.playerId().getMostSignificantBits();
+            long least = query.playerId().getLeastSignificantBits();
+            for (int i = 0; i < players; i++) {
+                long playerMost = index.getLong();
+                long playerLeast = index.getLong();
+                index.getInt(); // 频道掩码
+                index.getLong(); // 最早时间
+                long maxTime = index.getLong();
+                int count = index.getInt();
+                if (playerMost != most || playerLeast != least) {
+                    index.position(index.position() + count * 4);
+                    continue;
+                }
+                if (maxTime < query.since()) {
+                    return new int[0];
+                }
+                int[] offsets = new int[count];
+                index.asIntBuffer().get(offsets);
+                return offsets;
+            }
+            return new int[0];
+        }
+    }
+
+    private static void match(ByteBuffer data, int position, ChatLogSearch.Query query, List<ChatLogSearch.Hit> hits) {
+        long time = data.getLong(position + 4);
+        if (time < query.since()) {
+            return;
+        }
+        int nameLength = data.getShort(position + 29);
+        int textLength = data.getInt(position + 31);
+        int nameStart = position + RECORD_HEAD_BYTES;
+        String name = decode(data, nameStart, nameLength);
+        if (query.playerId() != null) {
+            if (data.getLong(position + 12) != query.playerId().getMostSignificantBits()
+                || data.getLong(position + 20) != query.playerId().getLeastSignificantBits()) {
+                return;
+            }
+        } else if (!name.equalsIgnoreCase(query.playerName())) {
+            return;
+        }
+        String message = decode(data, nameStart + nameLength, textLength);
+        if (!query.matchesText(message)) {
+            return;
+        }
+        hits.add(new ChatLogSearch.Hit(time, name, channelName(data.get(position + 28)), message));
+    }
+
+    private static String decode(ByteBuffer data, int position, int length) {
+        byte[] bytes = new byte[length];
+        data.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 分段对应的索引文件
+     */
+    public static File indexFile(File segment) {
+        String name = segment.getName();
+        return new File(segment.getParentFile(), name.substring(0, name.length() - ".bin".length()) + ".idx");
+    }
+
+    /**
+     * 分段索引构建器 - 写入时在内存中累积，分段关闭时写出
+     */
+    public static class IndexBuilder {
+        private final Map<UUID, PlayerEntry> players = new HashMap<>();
+        private int recordCount = 0;
+        private long minTime = Long.MAX_VALUE;
+        private long maxTime = Long.MIN_VALUE;
+
+        public void add(int offset, long time, UUID playerId, byte channel) {
+            PlayerEntry entry = players.computeIfAbsent(playerId, id -> new PlayerEntry());
+            entry.add(offset, time, channelBit(channel));
+            recordCount++;
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+        }
+
+        public void add(int offset, long time, UUID playerId, String channel) {
+            add(offset, time, playerId, channelCode(channel));
+        }
+
+        public void clear() {
+            players.clear();
+            recordCount = 0;
+            minTime = Long.MAX_VALUE;
+            maxTime = Long.MIN_VALUE;
+        }
+
+        /**
+         * 写出索引：先写入临时文件再重命名
+         * @param coveredBytes 索引覆盖的分段长度，用于判断索引是否过期
+         */
+        public void writeTo(File indexFile, long coveredBytes) throws IOException {
+            File temp = new File(indexFile.getPath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeShort(VERSION);
+                out.writeShort(0);
+                out.writeLong(coveredBytes);
+                out.writeInt(recordCount);
+                out.writeLong(minTime);
+                out.writeLong(maxTime);
+                out.writeInt(players.size());
+                for (Map.Entry<UUID, PlayerEntry> player : players.entrySet()) {
+                    PlayerEntry entry = player.getValue();
+                    out.writeLong(player.getKey().getMostSignificantBits());
+                    out.writeLong(player.getKey().getLeastSignificantBits());
+                    out.writeInt(entry.channelMask);
+                    out.writeLong(entry.minTime);
+                    out.writeLong(entry.maxTime);
+                    out.writeInt(entry.count);
+                    for (int i = 0; i < entry.count; i++) {
+                        out.writeInt(entry.offsets[i]);
+                    }
+                }
+            }
+            Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * 索引中单个玩家的条目
+     */
+    private static class PlayerEntry {
+        private int[] offsets = new int[8];
+        private int count = 0;
+        private int channelMask = 0;
+        private long minTime = Long.MAX_VALUE;
+        private long maxTime = Long.MIN_VALUE;
+
+        void add(int offset, long time, int channelBit) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = offset;
+            channelMask |= channelBit;
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+        }
+    }
+}
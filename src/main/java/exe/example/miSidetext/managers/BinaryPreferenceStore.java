@@ -0,0 +1,298 @@
+package exe.example.miSidetext.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * 单文件的偏好设置存储（preferences.dat）- 每次保存都以定长记录追加到文件末尾，
+ * 内存中只保存每个玩家最新记录的偏移量，读取时按偏移量直接读取一条记录。
+ * 旧记录超过有效记录数后整理：只把有效记录写入临时文件再重命名。
+ * 每条记录带CRC校验，启动时截掉写了一半的末尾记录
+ */
+public class BinaryPreferenceStore implements PreferenceStore {
+
+    private static final int MAGIC = 0x4D535046; // "MSPF"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 8; // 魔数、版本号、保留
+    // 记录：UUID、启用、打字速度、跳动高度、掉落持续时间、频道、阅读方向、CRC
+    static final int RECORD_BYTES = 8 + 8 + 1 + 8 + 8 + 8 + 1 + 1 + 4;
+    private static final int PAYLOAD_BYTES = RECORD_BYTES - 4;
+    // 旧记录少于该数量时不整理
+    private static final int COMPACT_MIN_STALE = 1024;
+
+    private final File file;
+    // 读取（任意线程）持读锁，写入和整理持写锁
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<UUID, Long> offsets = new HashMap<>();
+    private FileChannel channel;
+    private volatile long end; // 下一条记录的写入位置
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(RECORD_BYTES); // 仅在持写锁时使用
+
+    // 统计数据
+    private volatile long compactionCount = 0;
+    private volatile long truncatedBytes = 0;
+
+    public BinaryPreferenceStore(File file) throws IOException {
+        this.file = file;
+        open();
+    }
+
+    /**
+     * 打开文件并扫描全部记录建立偏移索引
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Map<UUID, Long> loaded = new HashMap<>();
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).flip();
+            channel.truncate(0);
+            writeFully(header, 0);
+            end = HEADER_BYTES;
+            offsets = loaded;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getShort() != VERSION) {
+            channel.close();
+            throw new IOException("不是有效的偏好设置文件: " + file.getName());
+        }
+
+        // 分块顺序读取，遇到不完整或校验失败的记录即视为末尾
+        ByteBuffer chunk = ByteBuffer.allocate(RECORD_BYTES * 1024);
+        CRC32 crc = new CRC32();
+        long position = HEADER_BYTES;
+        scan:
+        while (position + RECORD_BYTES <= size) {
+            chunk.clear();
+            long remaining = (size - position) / RECORD_BYTES * RECORD_BYTES;
+            chunk.limit((int) Math.min(chunk.capacity(), remaining));
+            readFully(chunk, position);
+            chunk.flip();
+            while (chunk.remaining() >= RECORD_BYTES) {
+                int start = chunk.position();
+                crc.reset();
+                crc.update(chunk.array(), start, PAYLOAD_BYTES);
+                if ((int) crc.getValue() != chunk.getInt(start + PAYLOAD_BYTES)) {
+                    break scan;
+                }
+                loaded.put(new UUID(chunk.getLong(start), chunk.getLong(start + 8)), position);
+                chunk.position(start + RECORD_BYTES);
+                position += RECORD_BYTES;
+            }
+        }
+        if (position < size) {
+            truncatedBytes += size - position;
+            channel.truncate(position);
+        }
+        end = position;
+        offsets = loaded;
+    }
+
+    @Override
+    public PlayerPreferences load(UUID playerId, PlayerPreferences defaults) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        lock.readLock().lock();
+        try {
+            Long offset = offsets.get(playerId);
+            if (offset == null) {
+                return defaults;
+            }
+            readFully(record, offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+        record.flip();
+        return decode(record, defaults);
+    }
+
+    @Override
+    public void save(UUID playerId, PlayerPreferences preferences) throws IOException {
+        lock.writeLock().lock();
+        try {
+            writeBuffer.clear();
+            encode(writeBuffer, playerId, preferences);
+            writeBuffer.flip();
+            writeFully(writeBuffer, end);
+            offsets.put(playerId, end);
+            end += RECORD_BYTES;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 刷新到磁盘，旧记录过多时整理
+     */
+    @Override
+    public void commit() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.force(false);
+            long stale = getRecordCount() - offsets.size();
+            if (stale > COMPACT_MIN_STALE && stale > offsets.size()) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 只保留每个玩家的最新记录重写文件（持写锁）
+     */
+    private void compact() throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            for (Map.Entry<UUID, Long> entry : offsets.entrySet()) {
+                record.clear();
+                readFully(record, entry.getValue());
+                record.flip();
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            }
+            out.force(true);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+
+        channel.close();
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // 重新打开并扫描整理后的文件；重命名失败时重新打开原文件
+            open();
+        }
+        compactionCount++;
+    }
+
+    private static void encode(ByteBuffer buffer, UUID playerId, PlayerPreferences preferences) {
+        int start = buffer.position();
+        buffer.putLong(playerId.getMostSignificantBits())
+            .putLong(playerId.getLeastSignificantBits())
+            .put((byte) (preferences.enabled() ? 1 : 0))
+            .putLong(preferences.typingSpeed())
+            .putDouble(preferences.bounceHeight())
+            .putDouble(preferences.fallDuration())
+            .put((byte) preferences.defaultChannel().ordinal())
+            .put((byte) (preferences.leftToRight() ? 1 : 0));
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), start, PAYLOAD_BYTES);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private static PlayerPreferences decode(ByteBuffer buffer, PlayerPreferences defaults) {
+        buffer.position(16);
+        boolean enabled = buffer.get() != 0;
+        long typingSpeed = buffer.getLong();
+        double bounceHeight = buffer.getDouble();
+        double fallDuration = buffer.getDouble();
+        int channelIndex = buffer.get();
+        boolean leftToRight = buffer.get() != 0;
+        ChatManager.ChatChannel[] channels = ChatManager.ChatChannel.values();
+        ChatManager.ChatChannel channel = channelIndex >= 0 && channelIndex < channels.length
+            ? channels[channelIndex] : defaults.defaultChannel();
+        return new PlayerPreferences(enabled, typingSpeed, bounceHeight, fallDuration, channel, leftToRight);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("偏好设置文件意外结束: " + file.getName());
+            }
+            position += read;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * 是否保存过该玩家
+     */
+    public boolean contains(UUID playerId) {
+        lock.readLock().lock();
+        try {
+            return offsets.containsKey(playerId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取已保存的玩家数
+     */
+    public int getPlayerCount() {
+        lock.readLock().lock();
+        try {
+            return offsets.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取文件中的记录数（含已被覆盖的旧记录）
+     */
+    public long getRecordCount() {
+        return (end - HEADER_BYTES) / RECORD_BYTES;
+    }
+
+    public long getFileSize() {
+        return end;
+    }
+
+    public long getCompactionCount() {
+        return compactionCount;
+    }
+
+    public long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    @Override
+    public String getName() {
+        return "BINARY";
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            // 关闭失败时数据已在最近一次提交时写入磁盘
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
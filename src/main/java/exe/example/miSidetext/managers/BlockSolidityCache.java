@@ -0,0 +1,268 @@
+package exe.example.miSidetext.managers;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 方块固体缓存 - 由区块快照按16x16x16分段生成固体位图，供所有坠落字符共享查询。
+ * 查询不会加载区块：目标区块未加载时返回UNLOADED，由调用方让字符立即着地
+ */
+public class BlockSolidityCache {
+
+    // 查询结果
+    public static final int AIR = 0;
+    public static final int SOLID = 1;
+    public static final int UNLOADED = 2;
+
+    // 空分段共用的位图
+    private static final long[] EMPTY_SECTION = new long[64];
+
+    private final MiSidetext plugin;
+    // 按世界UUID、区块坐标索引的缓存
+    private final Map<UUID, Map<Long, ChunkEntry>> worlds = new HashMap<>();
+    // 方块变化后待刷新的区块，下一个tick开始时丢弃（事件触发时方块尚未真正改变）
+    private final Map<UUID, Set<Long>> dirtyChunks = new HashMap<>();
+    private long currentTick = 0;
+
+    // 最近一次查询的区块，相邻查询大多落在同一区块
+    private UUID lastWorldId;
+    private long lastChunkKey;
+    private ChunkEntry lastEntry;
+
+    // 配置参数
+    private int refreshTicks; // 快照最长使用时间（tick），兜底覆盖未监听的方块变化
+    private int idleTicks; // 区块多久未被查询后移出缓存（tick）
+
+    // 统计数据
+    private long snapshotCount = 0;
+    private long unloadedHits = 0;
+
+    public BlockSolidityCache(MiSidetext plugin) {
+        this.plugin = plugin;
+        loadConfig();
+    }
+
+    /**
+     * 加载配置
+     */
+    public void loadConfig() {
+        this.refreshTicks = Math.max(1, plugin.getConfig().getInt("performance.physics.snapshot-refresh-ticks", 100));
+        this.idleTicks = Math.max(20, plugin.getConfig().getInt("performance.physics.snapshot-idle-ticks", 600));
+    }
+
+    /**
+     * 每个tick物理步进之前调用：应用方块变化，定期移出长时间未查询的区块
+     */
+    public void beginTick() {
+        currentTick++;
+
+        if (!dirtyChunks.isEmpty()) {
+            for (Map.Entry<UUID, Set<Long>> entry : dirtyChunks.entrySet()) {
+                Map<Long, ChunkEntry> chunks = worlds.get(entry.getKey());
+                if (chunks != null) {
+                    chunks.keySet().removeAll(entry.getValue());
+                }
+            }
+            dirtyChunks.clear();
+            lastEntry = null;
+        }
+
+        if (currentTick % 100 == 0) {
+            Iterator<Map<Long, ChunkEntry>> worldIterator = worlds.values().iterator();
+            while (worldIterator.hasNext()) {
+                Map<Long, ChunkEntry> chunks = worldIterator.next();
+                chunks.values().removeIf(chunk -> currentTick - chunk.lastAccess > idleTicks);
+                if (chunks.isEmpty()) {
+                    worldIterator.remove();
+                }
+            }
+            lastEntry = null;
+        }
+    }
+
+    /**
+     * 查询方块是否为固体
+     * @return AIR、SOLID或UNLOADED
+     */
+    public int query(World world, int x, int y, int z) {
+        int minY = world.getMinHeight();
+        if (y < minY) {
+            // 掉出世界底部，视为需要立即着地
+            unloadedHits++;
+            return UNLOADED;
+        }
+        if (y >= world.getMaxHeight()) {
+            return AIR;
+        }
+
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        ChunkEntry entry = getEntry(world, chunkX, chunkZ);
+        if (entry == null) {
+            unloadedHits++;
+            return UNLOADED;
+        }
+
+        long[] bits = entry.section((y - minY) >> 4, minY);
+        int index = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+        return (bits[index >> 6] & (1L << (index & 63))) != 0 ? SOLID : AIR;
+    }
+
+    /**
+     * 获取区块缓存，区块未加载时返回null
+     */
+    private ChunkEntry getEntry(World world, int chunkX, int chunkZ) {
+        UUID worldId = world.getUID();
+        long key = chunkKey(chunkX, chunkZ);
+        ChunkEntry entry = lastEntry != null && key == lastChunkKey && worldId.equals(lastWorldId) ? lastEntry : null;
+
+        if (entry == null || currentTick - entry.createdAt >= refreshTicks) {
+            Map<Long, ChunkEntry> chunks = worlds.computeIfAbsent(worldId, id -> new HashMap<>());
+            if (entry == null) {
+                entry = chunks.get(key);
+            }
+            if (entry == null || currentTick - entry.createdAt >= refreshTicks) {
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    chunks.remove(key);
+                    lastEntry = null;
+                    return null;
+                }
+                int sectionCount = (world.getMaxHeight() - world.getMinHeight()) >> 4;
+                entry = new ChunkEntry(world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false),
+                    currentTick, sectionCount);
+                chunks.put(key, entry);
+                snapshotCount++;
+            }
+        }
+
+        entry.lastAccess = currentTick;
+        lastWorldId = worldId;
+        lastChunkKey = key;
+        lastEntry = entry;
+        return entry;
+    }
+
+    /**
+     * 方块发生变化，下一个tick刷新所在区块
+     */
+    public void invalidateBlock(World world, int x, int z) {
+        Map<Long, ChunkEntry> chunks = worlds.get(world.getUID());
+        long key = chunkKey(x >> 4, z >> 4);
+        if (chunks != null && chunks.containsKey(key)) {
+            dirtyChunks.computeIfAbsent(world.getUID(), id -> new HashSet<>()).add(key);
+        }
+    }
+
+    /**
+     * 区块卸载，立即移出缓存
+     */
+    public void invalidateChunk(World world, int chunkX, int chunkZ) {
+        Map<Long, ChunkEntry> chunks = worlds.get(world.getUID());
+        if (chunks != null) {
+            chunks.remove(chunkKey(chunkX, chunkZ));
+        }
+        lastEntry = null;
+    }
+
+    /**
+     * 世界卸载，移出该世界的全部缓存
+     */
+    public void invalidateWorld(World world) {
+        worlds.remove(world.getUID());
+        dirtyChunks.remove(world.getUID());
+        lastEntry = null;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 获取缓存的区块数
+     */
+    public int getCachedChunkCount() {
+        int count = 0;
+        for (Map<Long, ChunkEntry> chunks : worlds.values()) {
+            count += chunks.size();
+        }
+        return count;
+    }
+
+    /**
+     * 获取已生成的区块快照数
+     */
+    public long getSnapshotCount() {
+        return snapshotCount;
+    }
+
+    /**
+     * 获取查询到未加载区块的次数
+     */
+    public long getUnloadedHits() {
+        return unloadedHits;
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        worlds.clear();
+        dirtyChunks.clear();
+        lastEntry = null;
+    }
+
+    /**
+     * 单个区块的快照和按需生成的分段固体位图
+     */
+    private static class ChunkEntry {
+        private final ChunkSnapshot snapshot;
+        private final long createdAt;
+        private final long[][] sections;
+        private long lastAccess;
+
+        ChunkEntry(ChunkSnapshot snapshot, long createdAt, int sectionCount) {
+            this.snapshot = snapshot;
+            this.createdAt = createdAt;
+            this.lastAccess = createdAt;
+            this.sections = new long[sectionCount][];
+        }
+
+        /**
+         * 获取分段的固体位图，首次访问时生成
+         */
+        long[] section(int sectionIndex, int minY) {
+            long[] bits = sections[sectionIndex];
+            if (bits != null) {
+                return bits;
+            }
+
+            if (snapshot.isSectionEmpty(sectionIndex)) {
+                bits = EMPTY_SECTION;
+            } else {
+                bits = new long[64];
+                int baseY = minY + (sectionIndex << 4);
+                for (int dy = 0; dy < 16; dy++) {
+                    for (int dz = 0; dz < 16; dz++) {
+                        for (int dx = 0; dx < 16; dx++) {
+                            if (snapshot.getBlockType(dx, baseY + dy, dz).isSolid()) {
+                                int index = (dy << 8) | (dz << 4) | dx;
+                                bits[index >> 6] |= 1L << (index & 63);
+                            }
+                        }
+                    }
+                }
+            }
+            sections[sectionIndex] = bits;
+            return bits;
+        }
+    }
+}
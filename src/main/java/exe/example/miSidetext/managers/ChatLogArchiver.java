@@ -0,0 +1,223 @@
+package exe.example.miSidetext.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 聊天日志归档器 - 在低优先级的后台线程中压缩已关闭的日志分段，并按保留天数删除过期的日志。
+ * 分段文件名为 chat_<日期>.log 或 chat_<日期>.<序号>.log，压缩后追加 .gz 后缀；
+ * 二进制分段（.bin）及其索引（.idx）不压缩，只参与过期清理
+ */
+public class ChatLogArchiver {
+
+    // 日志分段文件名：日期、可选的分段序号、扩展名、可选的压缩后缀
+    static final Pattern SEGMENT_NAME = Pattern.compile("chat_(\\d{4}-\\d{2}-\\d{2})(?:\\.(\\d+))?\\.(log|bin|idx)(\\.gz)?");
+    private static final String TEMP_SUFFIX = ".tmp";
+    // 关闭时等待进行中的压缩任务的最长时间（毫秒）
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final MiSidetext plugin;
+    private final File logsDirectory;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ScheduledThreadPoolExecutor executor;
+
+    // 配置参数
+    private volatile boolean compressionEnabled; // 是否压缩已关闭的分段
+    private volatile int retentionDays; // 日志保留天数，小于等于0表示不删除
+
+    // 统计数据
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private final AtomicLong compressedCount = new AtomicLong();
+    private final AtomicLong savedBytes = new AtomicLong();
+    private final AtomicLong prunedCount = new AtomicLong();
+
+    public ChatLogArchiver(MiSidetext plugin, File logsDirectory) {
+        this.plugin = plugin;
+        this.logsDirectory = logsDirectory;
+        loadConfig();
+
+        // 关闭后提交的任务直接丢弃，尚未到期的定期清理不再执行
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "MiSidetext-ChatLogArchiver");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+
+        // 启动时处理之前留下的文件，之后每小时清理一次过期日志
+        submit(this::archivePreviousDays);
+        executor.scheduleWithFixedDelay(this::prune, 1, 1, TimeUnit.HOURS);
+    }
+
+    /**
+     * 加载配置
+     */
+    public void loadConfig() {
+        FileConfiguration config = plugin.getConfig();
+        this.compressionEnabled = config.getBoolean("logging.compression.enabled", true);
+        this.retentionDays = config.getInt("logging.retention-days", 7);
+    }
+
+    /**
+     * 压缩写入器刚关闭的日志分段（任意线程）
+     */
+    public void segmentClosed(File segment) {
+        if (compressionEnabled) {
+            submit(() -> compress(segment));
+        }
+    }
+
+    private void submit(Runnable task) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        pendingTasks.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning(String.format("聊天日志归档失败: %s", e.getMessage()));
+            } finally {
+                pendingTasks.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 启动时清理过期日志和中断的压缩临时文件，并压缩今天之前的未压缩分段
+     */
+    private void archivePreviousDays() {
+        prune();
+        File[] files = logsDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now(zone);
+        for (File file : files) {
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                file.delete();
+                continue;
+            }
+            LocalDate date = segmentDate(file.getName());
+            if (compressionEnabled && date != null && date.isBefore(today) && file.getName().endsWith(".log")) {
+                compress(file);
+            }
+        }
+    }
+
+    /**
+     * 删除超过保留天数的日志分段
+     */
+    private void prune() {
+        int days = retentionDays;
+        if (days <= 0) {
+            return;
+        }
+        File[] files = logsDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        LocalDate oldestKept = LocalDate.now(zone).minusDays(days);
+        for (File file : files) {
+            LocalDate date = segmentDate(file.getName());
+            if (date != null && date.isBefore(oldestKept) && file.delete()) {
+                prunedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 把分段压缩为 .gz 文件：先写入临时文件再重命名，成功后删除原文件
+     */
+    private void compress(File segment) {
+        if (!segment.isFile()) {
+            return;
+        }
+        File target = new File(segment.getPath() + ".gz");
+        File temp = new File(target.getPath() + TEMP_SUFFIX);
+        long originalSize = segment.length();
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp.toPath()), 64 * 1024)) {
+                Files.copy(segment.toPath(), out);
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(segment.toPath());
+            compressedCount.incrementAndGet();
+            savedBytes.addAndGet(originalSize - target.length());
+        } catch (IOException e) {
+            temp.delete();
+            plugin.getLogger().warning(String.format("压缩聊天日志 %s 失败: %s", segment.getName(), e.getMessage()));
+        }
+    }
+
+    /**
+     * 从分段文件名中解析日期，不是日志分段时返回null
+     */
+    static LocalDate segmentDate(String fileName) {
+        Matcher matcher = SEGMENT_NAME.matcher(fileName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(matcher.group(1));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取等待执行的归档任务数
+     */
+    public int getPendingTasks() {
+        return pendingTasks.get();
+    }
+
+    public long getCompressedCount() {
+        return compressedCount.get();
+    }
+
+    /**
+     * 获取压缩节省的字节数
+     */
+    public long getSavedBytes() {
+        return savedBytes.get();
+    }
+
+    public long getPrunedCount() {
+        return prunedCount.get();
+    }
+
+    /**
+     * 停止后台线程，等待进行中的压缩任务完成
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                // 未完成的压缩在下次启动时重新进行
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package exe.example.miSidetext.managers;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.zip.GZIPInputStream;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 聊天日志查询 - 在异步线程中按从新到旧的顺序查找日志分段，二进制分段通过索引定位，
+ * 文本分段（含压缩的）逐行流式读取。找到第一页结果后立即发送，其余结果按页查看
+ */
+public class ChatLogSearch {
+
+    private static final int PAGE_SIZE = 10;
+    private static final DateTimeFormatter RESULT_TIME_FORMAT = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss");
+
+    private final MiSidetext plugin;
+    private final File logsDirectory;
+    private final ZoneId zone = ZoneId.systemDefault();
+    // 每个命令发送者最近一次查询的结果
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // 配置参数
+    private volatile int maxResults; // 单次查询最多返回的记录数
+
+    public ChatLogSearch(MiSidetext plugin, File logsDirectory) {
+        this.plugin = plugin;
+        this.logsDirectory = logsDirectory;
+        loadConfig();
+    }
+
+    /**
+     * 加载配置
+     */
+    public void loadConfig() {
+        this.maxResults = Math.max(PAGE_SIZE, plugin.getConfig().getInt("logging.search.max-results", 500));
+    }
+
+    /**
+     * 开始查询（主线程）
+     * @param playerName 玩家名，已知UUID时按UUID匹配二进制记录
+     * @param since 最早时间（毫秒），0表示不限制
+     * @param contains 消息需包含的文本，null表示不限制
+     */
+    public void search(CommandSender sender, String playerName, long since, String contains) {
+        UUID playerId = resolvePlayer(playerName);
+        Query query = new Query(playerId, playerName, since,
+            contains == null ? null : contains.toLowerCase(Locale.ROOT), maxResults);
+        Session session = new Session(query);
+        sessions.put(sender.getName(), session);
+        sender.sendMessage("§6[聊天日志] §f正在查找 " + playerName + " 的聊天记录...");
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> run(sender, session));
+    }
+
+    private static UUID resolvePlayer(String playerName) {
+        Player online = Bukkit.getPlayerExact(playerName);
+        if (online != null) {
+            return online.getUniqueId();
+        }
+        // 只使用服务器缓存，避免向外部服务查询UUID
+        OfflinePlayer cached = Bukkit.getOfflinePlayerIfCached(playerName);
+        return cached == null ? null : cached.getUniqueId();
+    }
+
+    /**
+     * 在异步线程中依次查找各个分段
+     */
+    private void run(CommandSender sender, Session session) {
+        long start = System.nanoTime();
+        Query query = session.query;
+        LocalDate sinceDate = query.since() > 0 ? Instant.ofEpochMilli(query.since()).atZone(zone).toLocalDate() : null;
+        int scanned = 0;
+
+        for (Segment segment : listSegments()) {
+            if (sessions.get(sender.getName()) != session || session.size() >= query.limit()) {
+                break;
+            }
+            if (sinceDate != null && segment.date.isBefore(sinceDate)) {
+                // 分段按日期从新到旧排列，之后的分段都更早
+                break;
+            }
+            try {
+                List<Hit> hits = segment.file.getName().endsWith(".bin")
+                    ? BinaryChatLog.search(segment.file, query)
+                    : searchText(segment, query);
+                scanned++;
+                if (session.append(hits) && session.size() >= PAGE_SIZE) {
+                    // 第一页已凑满，先发送给查询者
+                    Bukkit.getScheduler().runTask(plugin, () -> sendPage(sender, session, 1));
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning(String.format("读取聊天日志 %s 失败: %s", segment.file.getName(), e.getMessage()));
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        int segments = scanned;
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (session.finish()) {
+                sendPage(sender, session, 1);
+            }
+            sender.sendMessage("§6[聊天日志] §f查找完成: " + session.size() + " 条记录, 已读取 " + segments
+                + " 个分段, 耗时 " + elapsedMillis + "ms" + (session.pageCount() > 1 ? "，使用 /st logs page <页码> 翻页" : ""));
+        });
+    }
+
+    /**
+     * 列出所有日志分段，按日期和序号从新到旧排列
+     */
+    private List<Segment> listSegments() {
+        File[] files = logsDirectory.listFiles();
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<Segment> segments = new ArrayList<>();
+        for (File file : files) {
+            Matcher matcher = ChatLogArchiver.SEGMENT_NAME.matcher(file.getName());
+            if (!matcher.matches() || file.getName().endsWith(".idx")) {
+                continue;
+            }
+            LocalDate date = ChatLogArchiver.segmentDate(file.getName());
+            int index = matcher.group(2) == null ? 0 : Integer.parseInt(matcher.group(2));
+            segments.add(new Segment(file, date, index));
+        }
+        segments.sort(Comparator.comparing((Segment segment) -> segment.date)
+            .thenComparingInt(segment -> segment.index).reversed());
+        return segments;
+    }
+
+    /**
+     * 逐行查找文本分段，压缩的分段边读边解压
+     */
+    private List<Hit> searchText(Segment segment, Query query) throws IOException {
+        List<Hit> hits = new ArrayList<>();
+        try (InputStream raw = Files.newInputStream(segment.file.toPath());
+             InputStream in = segment.file.getName().endsWith(".gz") ? new GZIPInputStream(raw, 64 * 1024) : raw;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // 格式: [HH:mm:ss] [CHANNEL] name: message
+                int channelEnd = line.indexOf("] ", 12);
+                int nameEnd = channelEnd < 0 ? -1 : line.indexOf(": ", channelEnd + 2);
+                if (!line.startsWith("[") || nameEnd < 0) {
+                    continue;
+                }
+                String name = line.substring(channelEnd + 2, nameEnd);
+                if (!name.equalsIgnoreCase(query.playerName())) {
+                    continue;
+                }
+                String message = line.substring(nameEnd + 2);
+                if (!query.matchesText(message)) {
+                    continue;
+                }
+                long time;
+                try {
+                    time = segment.date.atTime(LocalTime.parse(line.substring(1, 9))).atZone(zone).toInstant().toEpochMilli();
+                } catch (DateTimeParseException e) {
+                    continue;
+                }
+                if (time >= query.since()) {
+                    hits.add(new Hit(time, name, line.substring(12, channelEnd), message));
+                }
+            }
+        }
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    /**
+     * 发送指定页的结果（主线程）
+     */
+    public void sendPage(CommandSender sender, int page) {
+        Session session = sessions.get(sender.getName());
+        if (session == null) {
+            sender.sendMessage("§c没有可翻页的查询结果，请先使用 /st logs <玩家> [时间] [内容]");
+            return;
+        }
+        sendPage(sender, session, page);
+    }
+
+    private void sendPage(CommandSender sender, Session session, int page) {
+        List<Hit> hits = session.page(page);
+        if (hits.isEmpty()) {
+            sender.sendMessage(page == 1 ? "§6[聊天日志] §f没有找到匹配的聊天记录" : "§c页码超出范围！");
+            return;
+        }
+        sender.sendMessage("§6===== " + session.query.playerName() + " 的聊天记录 (第 " + page + "/"
+            + session.pageCount() + " 页" + (session.isFinished() ? "" : "，仍在查找") + ") =====");
+        for (Hit hit : hits) {
+            sender.sendMessage("§7" + RESULT_TIME_FORMAT.format(Instant.ofEpochMilli(hit.time()).atZone(zone))
+                + " §e[" + hit.channel() + "] §f" + hit.playerName() + ": " + hit.message());
+        }
+    }
+
+    /**
+     * 解析起始时间：相对时间（30m、12h、7d）或日期（yyyy-MM-dd）
+     * @return 起始时间（毫秒），无法解析时返回-1
+     */
+    public long parseSince(String value) {
+        String text = value.toLowerCase(Locale.ROOT);
+        if (text.length() >= 2) {
+            long unit;
+            switch (text.charAt(text.length() - 1)) {
+                case 'm': unit = 60_000L; break;
+                case 'h': unit = 3_600_000L; break;
+                case 'd': unit = 86_400_000L; break;
+                default: unit = 0;
+            }
+            if (unit > 0) {
+                try {
+                    return Math.max(0, System.currentTimeMillis() - Long.parseLong(text.substring(0, text.length() - 1)) * unit);
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        try {
+            return LocalDate.parse(text).atStartOfDay(zone).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        sessions.clear();
+    }
+
+    /**
+     * 查询条件
+     * @param playerId 玩家UUID，未知时为null，改为按名字匹配
+     * @param contains 小写的消息内容过滤，null表示不限制
+     */
+    public record Query(UUID playerId, String playerName, long since, String contains, int limit) {
+
+        public boolean matchesText(String message) {
+            return contains == null || message.toLowerCase(Locale.ROOT).contains(contains);
+        }
+    }
+
+    /**
+     * 单条命中的聊天记录
+     */
+    public record Hit(long time, String playerName, String channel, String message) {
+    }
+
+    private record Segment(File file, LocalDate date, int index) {
+    }
+
+    /**
+     * 一次查询的结果，异步线程追加，主线程按页读取
+     */
+    private static class Session {
+        private final Query query;
+        private final List<Hit> hits = new ArrayList<>();
+        private boolean firstPageSent = false;
+        private boolean finished = false;
+
+        Session(Query query) {
+            this.query = query;
+        }
+
+        /**
+         * 追加结果
+         * @return 是否应在此时发送第一页
+         */
+        synchronized boolean append(List<Hit> found) {
+            int room = query.limit() - hits.size();
+            hits.addAll(found.size() > room ? found.subList(0, room) : found);
+            if (!firstPageSent && hits.size() >= PAGE_SIZE) {
+                firstPageSent = true;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 标记查询结束
+         * @return 第一页是否尚未发送
+         */
+        synchronized boolean finish() {
+            finished = true;
+            boolean pending = !firstPageSent;
+            firstPageSent = true;
+            return pending;
+        }
+
+        synchronized boolean isFinished() {
+            return finished;
+        }
+
+        synchronized int size() {
+            return hits.size();
+        }
+
+        synchronized int pageCount() {
+            return Math.max(1, (hits.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        }
+
+        synchronized List<Hit> page(int page) {
+            int from = (page - 1) * PAGE_SIZE;
+            if (page < 1 || from >= hits.size()) {
+                return Collections.emptyList();
+            }
+            return new ArrayList<>(hits.subList(from, Math.min(hits.size(), from + PAGE_SIZE)));
+        }
+    }
+}
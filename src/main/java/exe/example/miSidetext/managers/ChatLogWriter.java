@@ -0,0 +1,460 @@
+package exe.example.miSidetext.managers;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 聊天日志写入器 - 聊天线程只把记录放入有界队列，由单独的写入线程批量写入当天的日志文件。
+ * 文件在当天内保持打开，按刷盘间隔成组提交，队列满时丢弃新记录而不阻塞聊天线程。
+ * 日志按天和大小分段，文本分段关闭后交给归档器压缩，二进制分段关闭时写出索引
+ */
+public class ChatLogWriter {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    // 每批最多从队列取出的记录数
+    private static final int BATCH_LIMIT = 512;
+    // 关闭时等待写入线程排空队列的最长时间（毫秒）
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    // 用于唤醒写入线程的空记录
+    private static final Entry WAKE_UP = new Entry(0, null, null, null, null);
+
+    private final MiSidetext plugin;
+    private final File logsDirectory;
+    private final ChatLogArchiver archiver;
+    private final BlockingQueue<Entry> queue;
+    private final int capacity;
+    private final Thread writerThread;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Format format; // 分段格式，只在启动时读取
+    private volatile boolean running = true;
+
+    // 仅由写入线程访问
+    private final List<Entry> batch = new ArrayList<>(BATCH_LIMIT);
+    private final StringBuilder line = new StringBuilder(128);
+    private final BinaryChatLog.IndexBuilder index = new BinaryChatLog.IndexBuilder();
+    private ByteBuffer record = ByteBuffer.allocate(512);
+    private LocalDate currentDate;
+    private File currentFile;
+    private FileOutputStream currentStream;
+    private BufferedOutputStream currentOut;
+    private long currentBytes; // 当前分段已写入的字节数（含缓冲中的部分）
+
+    // 配置参数
+    private volatile long flushIntervalMillis; // 成组提交间隔（毫秒）
+    private volatile Durability durability; // 提交时的持久化级别
+    private volatile long maxSegmentBytes; // 单个分段的最大字节数，小于等于0表示只按天分段
+
+    // 统计数据
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile long writtenCount = 0;
+    private volatile long commitCount = 0;
+    private volatile long lastFlushNanos = 0;
+    private volatile double averageFlushNanos = 0;
+    private volatile long peakFlushNanos = 0;
+
+    public ChatLogWriter(MiSidetext plugin, File logsDirectory, ChatLogArchiver archiver) {
+        this.plugin = plugin;
+        this.logsDirectory = logsDirectory;
+        this.archiver = archiver;
+        this.capacity = Math.max(64, plugin.getConfig().getInt("logging.queue-capacity", 8192));
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.format = parseFormat(plugin.getConfig().getString("logging.format", "TEXT"));
+        loadConfig();
+
+        // 启动写入线程
+        this.writerThread = new Thread(this::runWriter, "MiSidetext-ChatLog");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * 加载配置（队列容量只在启动时读取）
+     */
+    public void loadConfig() {
+        FileConfiguration config = plugin.getConfig();
+        this.flushIntervalMillis = Math.max(10, config.getLong("logging.flush-interval-ms", 1000));
+        this.maxSegmentBytes = config.getLong("logging.rotation.max-file-size-mb", 32) * 1024 * 1024;
+        String level = config.getString("logging.durability", "FLUSH");
+        try {
+            this.durability = Durability.valueOf(level.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("无效的日志持久化级别: " + level + "，使用 FLUSH");
+            this.durability = Durability.FLUSH;
+        }
+    }
+
+    private Format parseFormat(String value) {
+        try {
+            return Format.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("无效的聊天日志格式: " + value + "，使用 TEXT");
+            return Format.TEXT;
+        }
+    }
+
+    /**
+     * 提交一条聊天记录（任意线程，不阻塞）
+     * @return 是否已放入队列，队列已满或写入器已关闭时返回false
+     */
+    public boolean submit(UUID playerId, String playerName, String channel, String message) {
+        if (!running) {
+            return false;
+        }
+        if (!queue.offer(new Entry(System.currentTimeMillis(), playerId, playerName, channel, message))) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 写入线程主循环：取出一批记录写入缓冲，到达提交间隔时成组提交
+     */
+    private void runWriter() {
+        boolean dirty = false;
+        long nextCommitAt = 0;
+
+        try {
+            while (running || !queue.isEmpty()) {
+                long wait = dirty ? Math.max(0, nextCommitAt - System.currentTimeMillis()) : flushIntervalMillis;
+                Entry first = queue.poll(wait, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_LIMIT - 1);
+                    if (writeBatch() && !dirty) {
+                        dirty = true;
+                        nextCommitAt = System.currentTimeMillis() + flushIntervalMillis;
+                    }
+                }
+                if (dirty && (!running || System.currentTimeMillis() >= nextCommitAt)) {
+                    commit();
+                    dirty = false;
+                }
+                if (!dirty && running && currentDate != null && !currentDate.equals(LocalDate.now(zone))) {
+                    // 跨天后没有新消息时也及时关闭前一天的分段
+                    closeSegment(true);
+                }
+            }
+        } catch (InterruptedException e) {
+            // 被中断时直接排空剩余记录
+            queue.drainTo(batch);
+            writeBatch();
+        } finally {
+            // 最后的分段留待下次启动继续写入，不做压缩
+            closeSegment(false);
+        }
+    }
+
+    /**
+     * 把当前批次写入缓冲
+     * @return 是否写入了记录
+     */
+    private boolean writeBatch() {
+        int written = 0;
+        for (Entry entry : batch) {
+            if (entry == WAKE_UP) {
+                continue;
+            }
+            try {
+                write(entry);
+                written++;
+            } catch (IOException e) {
+                plugin.getLogger().warning(String.format("保存聊天记录失败: %s", e.getMessage()));
+                closeFile();
+            }
+        }
+        batch.clear();
+        writtenCount += written;
+        return written > 0;
+    }
+
+    private void write(Entry entry) throws IOException {
+        ZonedDateTime time = Instant.ofEpochMilli(entry.time).atZone(zone);
+        LocalDate date = time.toLocalDate();
+        if (currentOut == null || !date.equals(currentDate)) {
+            closeSegment(true);
+            openSegment(date);
+        } else if (currentBytes >= segmentLimit()) {
+            closeSegment(true);
+            openSegment(date);
+        }
+
+        if (format == Format.BINARY) {
+            record = BinaryChatLog.encode(record, entry.time, entry.playerId, entry.channel, entry.playerName, entry.message);
+            index.add((int) currentBytes, entry.time, entry.playerId, entry.channel);
+            currentOut.write(record.array(), 0, record.limit());
+            currentBytes += record.limit();
+            return;
+        }
+
+        line.setLength(0);
+        line.append('[');
+        TIME_FORMAT.formatTo(time, line);
+        line.append("] [").append(entry.channel).append("] ")
+            .append(entry.playerName).append(": ").append(entry.message)
+            .append(System.lineSeparator());
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        currentOut.write(bytes);
+        currentBytes += bytes.length;
+    }
+
+    /**
+     * 当前格式下单个分段的最大字节数
+     */
+    private long segmentLimit() {
+        long limit = maxSegmentBytes > 0 ? maxSegmentBytes : Long.MAX_VALUE;
+        return format == Format.BINARY ? Math.min(limit, BinaryChatLog.MAX_SEGMENT_BYTES) : limit;
+    }
+
+    /**
+     * 打开指定日期的日志分段：依次查找 chat_<日期>.<扩展名>、chat_<日期>.1.<扩展名>……
+     * 追加到第一个未压缩且未写满的分段，都不满足时新建分段
+     */
+    private void openSegment(LocalDate date) throws IOException {
+        String prefix = "chat_" + DATE_FORMAT.format(date);
+        String extension = format == Format.BINARY ? ".bin" : ".log";
+        long limit = segmentLimit();
+        File segment;
+        for (int number = 0; ; number++) {
+            String name = number == 0 ? prefix + extension : prefix + "." + number + extension;
+            segment = new File(logsDirectory, name);
+            if (new File(logsDirectory, name + ".gz").exists()) {
+                continue;
+            }
+            if (!segment.exists() || segment.length() < limit) {
+                break;
+            }
+        }
+
+        long length = segment.exists() ? segment.length() : 0;
+        index.clear();
+        if (format == Format.BINARY && length > 0) {
+            // 继续写入已有的二进制分段：重建索引，截掉崩溃时写了一半的记录
+            long valid = BinaryChatLog.recover(segment, index);
+            if (valid < 0) {
+                index.clear();
+                valid = 0;
+            }
+            if (valid < length) {
+                try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                }
+                length = valid;
+            }
+            // 索引在分段关闭时重新写出
+            BinaryChatLog.indexFile(segment).delete();
+        }
+
+        currentStream = new FileOutputStream(segment, true);
+        currentOut = new BufferedOutputStream(currentStream, 64 * 1024);
+        currentFile = segment;
+        currentBytes = length;
+        currentDate = date;
+        if (format == Format.BINARY && length == 0) {
+            BinaryChatLog.writeHeader(record);
+            currentOut.write(record.array(), 0, record.limit());
+            currentBytes = BinaryChatLog.HEADER_BYTES;
+        }
+    }
+
+    /**
+     * 提交并关闭当前分段：二进制分段写出索引，文本分段可交给归档器压缩
+     * @param archive 是否压缩关闭的文本分段
+     */
+    private void closeSegment(boolean archive) {
+        if (currentOut == null) {
+            return;
+        }
+        File closed = currentFile;
+        long length = currentBytes;
+        forceFlush();
+        boolean intact = currentOut != null;
+        closeFile();
+        if (format == Format.BINARY) {
+            if (intact) {
+                try {
+                    index.writeTo(BinaryChatLog.indexFile(closed), length);
+                } catch (IOException e) {
+                    plugin.getLogger().warning(String.format("写入聊天日志索引失败: %s", e.getMessage()));
+                }
+            }
+            index.clear();
+        } else if (archive) {
+            archiver.segmentClosed(closed);
+        }
+    }
+
+    /**
+     * 成组提交：按持久化级别把缓冲写入操作系统或磁盘
+     */
+    private void commit() {
+        if (currentOut == null) {
+            return;
+        }
+        if (durability == Durability.NONE && running) {
+            // 只在缓冲写满、分段切换和关闭时写出
+            return;
+        }
+        forceFlush();
+    }
+
+    /**
+     * 按持久化级别写出缓冲，不受 NONE 级别限制
+     */
+    private void forceFlush() {
+        if (currentOut == null) {
+            return;
+        }
+        Durability level = durability;
+        long start = System.nanoTime();
+        try {
+            currentOut.flush();
+            if (level == Durability.FSYNC) {
+                FileChannel channel = currentStream.getChannel();
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning(String.format("保存聊天记录失败: %s", e.getMessage()));
+            closeFile();
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        long commits = ++commitCount;
+        lastFlushNanos = elapsed;
+        averageFlushNanos = commits == 1 ? elapsed : averageFlushNanos * 0.95 + elapsed * 0.05;
+        peakFlushNanos = Math.max(peakFlushNanos, elapsed);
+    }
+
+    private void closeFile() {
+        if (currentOut == null) {
+            return;
+        }
+        try {
+            currentOut.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning(String.format("关闭聊天日志失败: %s", e.getMessage()));
+        }
+        currentOut = null;
+        currentStream = null;
+        currentFile = null;
+        currentDate = null;
+    }
+
+    /**
+     * 获取队列中等待写入的记录数
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 获取因队列已满而丢弃的记录数
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    public long getCommitCount() {
+        return commitCount;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * 获取最近一次提交的耗时（纳秒）
+     */
+    public long getLastFlushNanos() {
+        return lastFlushNanos;
+    }
+
+    /**
+     * 获取提交平均耗时（纳秒）
+     */
+    public double getAverageFlushNanos() {
+        return averageFlushNanos;
+    }
+
+    /**
+     * 获取提交峰值耗时（纳秒）
+     */
+    public long getPeakFlushNanos() {
+        return peakFlushNanos;
+    }
+
+    /**
+     * 停止接收新记录，等待写入线程排空队列并关闭文件
+     */
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // 唤醒等待中的写入线程；队列已满时写入线程本就处于忙碌状态
+        queue.offer(WAKE_UP);
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            plugin.getLogger().warning("聊天日志写入线程未能在限时内结束，剩余 " + queue.size() + " 条记录未写入");
+        }
+    }
+
+    /**
+     * 提交时的持久化级别
+     */
+    public enum Durability {
+        NONE, // 只在缓冲写满、分段切换和关闭时写出
+        FLUSH, // 每次提交写入操作系统缓存
+        FSYNC // 每次提交强制写入磁盘
+    }
+
+    /**
+     * 日志分段格式
+     */
+    public enum Format {
+        TEXT, // 逐行文本，关闭后可压缩
+        BINARY // 带索引的二进制记录，供 /st logs 快速查询
+    }
+
+    /**
+     * 队列中的单条聊天记录
+     */
+    private record Entry(long time, UUID playerId, String playerName, String channel, String message) {
+    }
+}
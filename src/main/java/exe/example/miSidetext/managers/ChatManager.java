@@ -1,46 +1,35 @@
 package exe.example.miSidetext.managers;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import exe.example.miSidetext.MiSidetext;
 
 public class ChatManager {
 
     private final MiSidetext plugin;
-    private final Map<UUID, List<Long>> playerMessageTimestamps; // 玩家消息时间戳
-    private final Set<UUID> mutedPlayers; // 被禁言的玩家
-    private final Map<UUID, Long> muteEndTimes; // 禁言结束时间
+    private volatile SpamLimiter spamLimiter; // 刷屏限制器
+    private final MuteRegistry muteRegistry; // 禁言登记表
+    private final DuplicateDetector duplicateDetector; // 重复消息检测器
     private final File logsDirectory; // 日志目录
+    private final ChatLogArchiver logArchiver; // 聊天日志归档器
+    private final ChatLogWriter logWriter; // 聊天日志写入器
+    private final ChatLogSearch logSearch; // 聊天日志查询
     
     // 配置参数
-    private int spamThreshold; // 短时间内发送的消息数量阈值
-    private long spamTimeWindow; // 检测时间窗口（毫秒）
-    private long muteDuration; // 禁言时长（毫秒）
-    private boolean chatLoggingEnabled; // 是否启用聊天记录
+    private volatile int spamThreshold; // 短时间内发送的消息数量阈值
+    private volatile long spamTimeWindow; // 检测时间窗口（毫秒）
+    private volatile long muteDuration; // 禁言时长（毫秒）
+    private volatile boolean chatLoggingEnabled; // 是否启用聊天记录
     
     public ChatManager(MiSidetext plugin) {
         this.plugin = plugin;
-        this.playerMessageTimestamps = new ConcurrentHashMap<>();
-        this.mutedPlayers = new HashSet<>();
-        this.muteEndTimes = new ConcurrentHashMap<>();
+        this.muteRegistry = new MuteRegistry(plugin);
+        this.duplicateDetector = new DuplicateDetector(plugin);
         
         // 创建日志目录
         this.logsDirectory = new File(plugin.getDataFolder(), "chat_logs");
@@ -50,17 +39,34 @@ public class ChatManager {
         
         // 加载配置
         loadConfig();
-        
-        // 启动禁言检查任务
-        startMuteCheckTask();
+        this.logArchiver = new ChatLogArchiver(plugin, logsDirectory);
+        this.logWriter = new ChatLogWriter(plugin, logsDirectory, logArchiver);
+        this.logSearch = new ChatLogSearch(plugin, logsDirectory);
     }
     
     private void loadConfig() {
         FileConfiguration config = plugin.getConfig();
-        this.spamThreshold = config.getInt("chat-management.spam-threshold", 5);
-        this.spamTimeWindow = config.getLong("chat-management.spam-time-window", 3000); // 3秒
+        int threshold = config.getInt("chat-management.spam-threshold", 5);
+        long timeWindow = config.getLong("chat-management.spam-time-window", 3000); // 3秒
         this.muteDuration = config.getLong("chat-management.mute-duration", 10) * 1000; // 默认10秒
         this.chatLoggingEnabled = config.getBoolean("chat-management.log-enabled", true);
+        // 刷屏参数未变化时保留玩家的消息记录
+        if (spamLimiter == null || threshold != spamThreshold || timeWindow != spamTimeWindow) {
+            this.spamThreshold = threshold;
+            this.spamTimeWindow = timeWindow;
+            this.spamLimiter = new SpamLimiter(threshold, timeWindow);
+        }
+    }
+    
+    /**
+     * 重新加载聊天管理、重复检测和日志设置，禁言和日志写入不中断
+     */
+    public void reloadConfig() {
+        loadConfig();
+        duplicateDetector.loadConfig();
+        logWriter.loadConfig();
+        logArchiver.loadConfig();
+        logSearch.loadConfig();
     }
     
     /**
@@ -93,40 +99,25 @@ public class ChatManager {
      * 检查是否刷屏
      */
     private boolean checkSpam(UUID playerId) {
-        long currentTime = System.currentTimeMillis();
-        List<Long> timestamps = playerMessageTimestamps.computeIfAbsent(playerId, k -> new ArrayList<>());
-        
-        // 添加当前消息时间戳
-        timestamps.add(currentTime);
-        
-        // 清理过期的时间戳
-        Iterator<Long> iterator = timestamps.iterator();
-        while (iterator.hasNext()) {
-            if (currentTime - iterator.next() > spamTimeWindow) {
-                iterator.remove();
-            }
-        }
-        
-        // 如果消息数量超过阈值，判定为刷屏
-        return timestamps.size() > spamThreshold;
+        // 检测窗口内的消息数量超过阈值时判定为刷屏
+        return spamLimiter.record(playerId, System.currentTimeMillis());
     }
     
     /**
      * 禁言玩家
      */
     private void mutePlayer(UUID playerId) {
-        mutedPlayers.add(playerId);
-        muteEndTimes.put(playerId, System.currentTimeMillis() + muteDuration);
+        muteRegistry.mute(playerId, System.currentTimeMillis() + muteDuration);
         
         // 清理消息时间戳，避免重复触发
-        playerMessageTimestamps.remove(playerId);
+        spamLimiter.reset(playerId);
     }
     
     /**
      * 检查玩家是否被禁言
      */
     public boolean isMuted(UUID playerId) {
-        return mutedPlayers.contains(playerId);
+        return muteRegistry.isMuted(playerId);
     }
     
     /**
@@ -150,38 +141,54 @@ public class ChatManager {
         mutePlayer(player.getUniqueId());
     }
     
+    /**
+     * 检查消息是否与玩家最近的消息近似重复（任意线程）
+     * @return 该消息的处理方式
+     */
+    public DuplicateDetector.Action checkDuplicate(Player player, String message, ChatChannel channel) {
+        return duplicateDetector.check(player.getUniqueId(), message, channel);
+    }
+    
+    /**
+     * 玩家退出时释放其刷屏检测状态
+     */
+    public void forgetPlayer(UUID playerId) {
+        spamLimiter.reset(playerId);
+        duplicateDetector.forget(playerId);
+    }
+    
+    /**
+     * 获取刷屏限制器
+     */
+    public SpamLimiter getSpamLimiter() {
+        return spamLimiter;
+    }
+    
+    /**
+     * 获取禁言登记表
+     */
+    public MuteRegistry getMuteRegistry() {
+        return muteRegistry;
+    }
+    
+    /**
+     * 获取重复消息检测器
+     */
+    public DuplicateDetector getDuplicateDetector() {
+        return duplicateDetector;
+    }
+    
     /**
      * 获取剩余禁言时间（秒）
      */
     private long getRemainingMuteTime(UUID playerId) {
-        Long endTime = muteEndTimes.get(playerId);
-        if (endTime == null) return 0;
+        long endTime = muteRegistry.getEndTime(playerId);
+        if (endTime == 0) return 0;
         
         long remainingMs = endTime - System.currentTimeMillis();
         return Math.max(0, remainingMs / 1000);
     }
     
-    /**
-     * 启动禁言检查任务，自动解除过期禁言
-     */
-    private void startMuteCheckTask() {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                long currentTime = System.currentTimeMillis();
-                Iterator<Map.Entry<UUID, Long>> iterator = muteEndTimes.entrySet().iterator();
-                
-                while (iterator.hasNext()) {
-                    Map.Entry<UUID, Long> entry = iterator.next();
-                    if (currentTime > entry.getValue()) {
-                        mutedPlayers.remove(entry.getKey());
-                        iterator.remove();
-                    }
-                }
-            }
-        }.runTaskTimer(plugin, 20L, 20L); // 每秒检查一次
-    }
-    
     /**
      * 保存聊天记录（Player和message参数版本）
      */
@@ -195,23 +202,29 @@ public class ChatManager {
     public void logChat(Player player, String message, String channel) {
         if (!chatLoggingEnabled) return;
         
-        try {
-            // 获取当前日期的日志文件
-            String date = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
-            File logFile = new File(logsDirectory, "chat_" + date + ".log");
-            
-            // 记录聊天内容
-            String timestamp = new SimpleDateFormat("HH:mm:ss").format(new Date());
-            String logEntry = "[" + timestamp + "] [" + channel + "] " + player.getName() + ": " + message;
-            
-            // 写入文件
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(logFile, true))) {
-                writer.write(logEntry);
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            plugin.getLogger().warning(String.format("保存聊天记录失败: %s", e.getMessage()));
-        }
+        // 放入写入队列，由写入线程批量写入文件
+        logWriter.submit(player.getUniqueId(), player.getName(), channel, message);
+    }
+    
+    /**
+     * 获取聊天日志写入器
+     */
+    public ChatLogWriter getLogWriter() {
+        return logWriter;
+    }
+    
+    /**
+     * 获取聊天日志归档器
+     */
+    public ChatLogArchiver getLogArchiver() {
+        return logArchiver;
+    }
+    
+    /**
+     * 获取聊天日志查询
+     */
+    public ChatLogSearch getLogSearch() {
+        return logSearch;
     }
     
     /**
@@ -274,8 +287,12 @@ public class ChatManager {
      * 清理资源
      */
     public void cleanup() {
-        playerMessageTimestamps.clear();
-        mutedPlayers.clear();
-        muteEndTimes.clear();
+        // 排空并关闭聊天日志
+        logWriter.shutdown();
+        logArchiver.shutdown();
+        logSearch.cleanup();
+        spamLimiter.cleanup();
+        muteRegistry.cleanup();
+        duplicateDetector.cleanup();
     }
 }
\ No newline at end of file
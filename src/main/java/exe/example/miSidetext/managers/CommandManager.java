@@ -33,7 +33,8 @@ public class CommandManager implements CommandExecutor, TabCompleter {
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
         // 只有玩家可以使用某些命令
-        if (!(sender instanceof Player) && args.length > 0 && !args[0].equalsIgnoreCase("reload")) {
+        if (!(sender instanceof Player) && args.length > 0 && !args[0].equalsIgnoreCase("reload")
+            && !args[0].equalsIgnoreCase("logs")) {
             sender.sendMessage("§c只有玩家可以使用此命令！");
             return true;
         }
@@ -70,6 +71,9 @@ public class CommandManager implements CommandExecutor, TabCompleter {
                 }
                 handlePerformanceCommand((Player) sender, args[1], args);
                 break;
+            case "logs":
+                handleLogsCommand(sender, args);
+                break;
             default:
                 sendHelpMessage(sender);
                 break;
@@ -84,7 +88,7 @@ public class CommandManager implements CommandExecutor, TabCompleter {
         
         if (args.length == 1) {
             // 主命令补全
-            List<String> mainCommands = Arrays.asList("toggle", "reload", "test", "settings", "channel", "performance");
+            List<String> mainCommands = Arrays.asList("toggle", "reload", "test", "settings", "channel", "performance", "logs");
             for (String cmd : mainCommands) {
                 if (cmd.toLowerCase().startsWith(args[0].toLowerCase())) {
                     completions.add(cmd);
@@ -118,6 +122,9 @@ public class CommandManager implements CommandExecutor, TabCompleter {
                     }
                     break;
             }
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("logs") && !args[1].equalsIgnoreCase("page")) {
+            // 日志查询起始时间提示
+            completions.add("<时间(30m/12h/7d/yyyy-MM-dd)>");
         } else if (args.length == 3 && args[0].equalsIgnoreCase("settings") && args[1].equalsIgnoreCase("direction")) {
             // direction命令的补全
             List<String> directions = Arrays.asList("left", "right", "toggle");
@@ -154,6 +161,8 @@ public class CommandManager implements CommandExecutor, TabCompleter {
         sender.sendMessage("§e/st performance start <持续时间> <频率> <文本长度> - §f开始性能测试");
         sender.sendMessage("§e/st performance status - §f查看测试状态和TPS");
         sender.sendMessage("§e/st performance stop - §f停止性能测试");
+        sender.sendMessage("§e/st logs <玩家> [时间] [内容] - §f查询玩家的聊天记录 (时间: 30m/12h/7d/yyyy-MM-dd)");
+        sender.sendMessage("§e/st logs page <页码> - §f查看查询结果的其他页");
         sender.sendMessage("§6=========================");
     }
 
@@ -171,8 +180,15 @@ public class CommandManager implements CommandExecutor, TabCompleter {
      * 处理重载命令
      */
     private void handleReloadCommand(CommandSender sender) {
-        plugin.reloadConfig();
-        sender.sendMessage("§6[MiSidetext] §f配置已成功重载！");
+        List<String> errors = plugin.reloadSettings();
+        if (errors.isEmpty()) {
+            sender.sendMessage("§6[MiSidetext] §f配置已成功重载，并已应用到正在显示的效果！");
+            return;
+        }
+        sender.sendMessage("§6[MiSidetext] §e配置已重载，但有 " + errors.size() + " 项无效，已使用默认值：");
+        for (String error : errors) {
+            sender.sendMessage("§e - " + error);
+        }
     }
 
     /**
@@ -381,4 +397,44 @@ public class CommandManager implements CommandExecutor, TabCompleter {
             player.sendMessage("§c未知的子命令！可用: start, status, stop");
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * 处理聊天日志查询命令
+     */
+    private void handleLogsCommand(CommandSender sender, String[] args) {
+        if (!sender.isOp() && !sender.hasPermission("misidetext.logs")) {
+            sender.sendMessage("§c您没有权限查询聊天记录！");
+            return;
+        }
+        if (args.length < 2) {
+            sender.sendMessage("§c用法: /st logs <玩家> [时间] [内容]");
+            sender.sendMessage("§e例如: /st logs Steve 2d 出售 - 查询Steve两天内包含\"出售\"的消息");
+            return;
+        }
+        
+        ChatLogSearch logSearch = plugin.getChatManager().getLogSearch();
+        if (args[1].equalsIgnoreCase("page")) {
+            try {
+                logSearch.sendPage(sender, args.length > 2 ? Integer.parseInt(args[2]) : 1);
+            } catch (NumberFormatException e) {
+                sender.sendMessage("§c请输入有效的页码！");
+            }
+            return;
+        }
+        
+        // 第三个参数能解析为时间时作为起始时间，否则和之后的参数一起作为内容过滤
+        long since = 0;
+        int containsStart = 2;
+        if (args.length > 2) {
+            long parsed = logSearch.parseSince(args[2]);
+            if (parsed >= 0) {
+                since = parsed;
+                containsStart = 3;
+            }
+        }
+        String contains = args.length > containsStart
+            ? String.join(" ", Arrays.copyOfRange(args, containsStart, args.length))
+            : null;
+        logSearch.search(sender, args[1], since, contains);
+    }
+}
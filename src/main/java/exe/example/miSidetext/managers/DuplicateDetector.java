@@ -0,0 +1,254 @@
+package exe.example.miSidetext.managers;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 重复消息检测器 - 为每条消息计算64位SimHash指纹（字符三元组的滚动哈希），
+ * 与该玩家最近几条消息的指纹比较汉明距离，距离足够小即视为近似重复。
+ * 每个频道可以单独配置是否检测、判定阈值，以及重复时只跳过侧边文本还是直接拦截消息
+ */
+public class DuplicateDetector {
+
+    private static final int SHINGLE = 3; // 三元组长度
+    private static final long HASH_BASE = 0x100000001B3L; // 滚动哈希的基数
+
+    private final MiSidetext plugin;
+    private final Map<UUID, History> histories = new ConcurrentHashMap<>();
+
+    // 配置参数
+    private volatile boolean enabled;
+    private volatile int historySize; // 每个玩家保留的最近消息数
+    private volatile long windowMillis; // 只与这段时间内的消息比较（毫秒）
+    private volatile int minLength; // 短于该长度（规范化后）的消息不检测
+    private volatile Map<ChatManager.ChatChannel, ChannelRule> rules = new EnumMap<>(ChatManager.ChatChannel.class);
+
+    // 统计数据
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private final AtomicLong blockedCount = new AtomicLong();
+
+    public DuplicateDetector(MiSidetext plugin) {
+        this.plugin = plugin;
+        loadConfig();
+    }
+
+    /**
+     * 加载配置
+     */
+    public void loadConfig() {
+        FileConfiguration config = plugin.getConfig();
+        String path = "chat-management.duplicate-detection";
+        this.enabled = config.getBoolean(path + ".enabled", true);
+        int size = Math.max(1, config.getInt(path + ".history-size", 5));
+        if (size != historySize) {
+            // 历史长度变化时丢弃旧记录
+            histories.clear();
+        }
+        this.historySize = size;
+        this.windowMillis = Math.max(0, config.getLong(path + ".window-seconds", 30)) * 1000;
+        this.minLength = Math.max(1, config.getInt(path + ".min-length", 4));
+
+        int defaultDistance = config.getInt(path + ".max-distance", 3);
+        Action defaultAction = parseAction(config.getString(path + ".action", "SUPPRESS"));
+        Map<ChatManager.ChatChannel, ChannelRule> loaded = new EnumMap<>(ChatManager.ChatChannel.class);
+        for (ChatManager.ChatChannel channel : ChatManager.ChatChannel.values()) {
+            ConfigurationSection section = config.getConfigurationSection(path + ".channels." + channel.name().toLowerCase(Locale.ROOT));
+            boolean channelEnabled = section == null || section.getBoolean("enabled", true);
+            int distance = section == null ? defaultDistance : section.getInt("max-distance", defaultDistance);
+            Action action = section == null || !section.contains("action")
+                ? defaultAction : parseAction(section.getString("action"));
+            loaded.put(channel, new ChannelRule(channelEnabled, Math.max(0, Math.min(64, distance)), action));
+        }
+        this.rules = loaded;
+    }
+
+    private Action parseAction(String value) {
+        try {
+            Action action = Action.valueOf(value.toUpperCase(Locale.ROOT));
+            // ALLOW 表示“不重复”，不能作为重复时的处理方式；不检测某个频道请用 enabled: false
+            if (action != Action.ALLOW) {
+                return action;
+            }
+        } catch (IllegalArgumentException | NullPointerException e) {
+            // 下面统一提示
+        }
+        plugin.getLogger().warning("无效的重复消息处理方式: " + value + "（可选 SUPPRESS 或 BLOCK），使用 SUPPRESS");
+        return Action.SUPPRESS;
+    }
+
+    /**
+     * 检查消息是否与玩家最近的消息近似重复，并记录该消息（任意线程）
+     * @return 不重复或该频道未启用检测时返回 {@link Action#ALLOW}
+     */
+    public Action check(UUID playerId, String message, ChatManager.ChatChannel channel) {
+        ChannelRule rule = rules.get(channel);
+        if (!enabled || rule == null || !rule.enabled()) {
+            return Action.ALLOW;
+        }
+        long fingerprint = fingerprint(message, minLength);
+        if (fingerprint == 0) {
+            return Action.ALLOW;
+        }
+
+        History history = histories.get(playerId);
+        if (history == null) {
+            history = histories.computeIfAbsent(playerId, id -> new History(historySize));
+        }
+        boolean duplicate = history.recordAndMatch(fingerprint, System.currentTimeMillis(), windowMillis, rule.maxDistance());
+        if (!duplicate) {
+            return Action.ALLOW;
+        }
+        if (rule.action() == Action.BLOCK) {
+            blockedCount.incrementAndGet();
+        } else {
+            suppressedCount.incrementAndGet();
+        }
+        return rule.action();
+    }
+
+    /**
+     * 计算消息的SimHash指纹：忽略颜色代码、空白、标点和大小写，对每个字符三元组做滚动哈希后按位投票
+     * @return 规范化后短于最小长度时返回0
+     */
+    static long fingerprint(String message, int minLength) {
+        // 规范化：只保留字母和数字，统一为小写
+        char[] chars = new char[message.length()];
+        int length = 0;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if ((c == '§' || c == '&') && i + 1 < message.length()) {
+                i++;
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                chars[length++] = Character.toLowerCase(c);
+            }
+        }
+        if (length < minLength) {
+            return 0;
+        }
+
+        int[] votes = new int[64];
+        if (length < SHINGLE) {
+            vote(votes, mix(new String(chars, 0, length).hashCode()));
+        } else {
+            // 滚动哈希：移出最早的字符、移入新字符
+            long power = 1;
+            for (int i = 1; i < SHINGLE; i++) {
+                power *= HASH_BASE;
+            }
+            long hash = 0;
+            for (int i = 0; i < length; i++) {
+                if (i >= SHINGLE) {
+                    hash -= chars[i - SHINGLE] * power;
+                }
+                hash = hash * HASH_BASE + chars[i];
+                if (i >= SHINGLE - 1) {
+                    vote(votes, mix(hash));
+                }
+            }
+        }
+
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        // 0 保留为“不检测”
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private static void vote(int[] votes, long hash) {
+        for (int bit = 0; bit < 64; bit++) {
+            votes[bit] += ((hash >>> bit) & 1) == 1 ? 1 : -1;
+        }
+    }
+
+    /**
+     * 64位哈希的混合函数，使相邻的三元组哈希在各位上分布均匀
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * 玩家退出时释放其消息历史
+     */
+    public void forget(UUID playerId) {
+        histories.remove(playerId);
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    public long getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        histories.clear();
+    }
+
+    /**
+     * 重复消息的处理方式
+     */
+    public enum Action {
+        ALLOW, // 不重复，正常处理
+        SUPPRESS, // 照常发送聊天消息，但不生成侧边文本
+        BLOCK // 直接拦截消息
+    }
+
+    /**
+     * 单个频道的检测规则
+     */
+    private record ChannelRule(boolean enabled, int maxDistance, Action action) {
+    }
+
+    /**
+     * 单个玩家最近消息指纹的环形缓冲区
+     */
+    private static class History {
+        private final long[] fingerprints;
+        private final long[] times;
+        private int next = 0;
+
+        History(int size) {
+            this.fingerprints = new long[size];
+            this.times = new long[size];
+        }
+
+        synchronized boolean recordAndMatch(long fingerprint, long now, long windowMillis, int maxDistance) {
+            boolean duplicate = false;
+            for (int i = 0; i < fingerprints.length; i++) {
+                if (fingerprints[i] != 0 && now - times[i] <= windowMillis
+                    && Long.bitCount(fingerprints[i] ^ fingerprint) <= maxDistance) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            fingerprints[next] = fingerprint;
+            times[next] = now;
+            next = (next + 1) % fingerprints.length;
+            return duplicate;
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package exe.example.miSidetext.managers;
+
+import java.util.Arrays;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.TextDisplay;
+import org.joml.Quaternionf;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 坠落物理引擎 - 所有坠落字符的位置、速度、旋转和着地状态保存在按整数句柄索引的基本类型数组中，
+ * 每个tick在一个循环里统一推进，单tick的步进次数有上限
+ */
+public class FallPhysicsEngine {
+
+    private static final double GRAVITY = -0.04; // 重力加速度
+    private static final double FRICTION = 0.98; // 摩擦力系数
+    private static final double RESTITUTION = 0.6; // 弹性系数
+
+    // 句柄状态
+    private static final byte FREE = 0;
+    private static final byte FALLING = 1;
+    private static final byte SETTLED = 2;
+
+    private final MiSidetext plugin;
+    // 所有坠落字符共享的方块固体缓存
+    private final BlockSolidityCache solidityCache;
+
+    // 按句柄索引的状态数组
+    private double[] posX, posY, posZ;
+    private double[] velX, velY, velZ;
+    private float[] rotX, rotY, rotZ; // 累积旋转量
+    private float[] quatX, quatY, quatZ, quatW; // 输出的旋转四元数
+    private int[] stillTicks; // 连续静止的tick数
+    private int[] teleportCountdown; // 距离下一次发送位置的tick数
+    private byte[] state;
+    private World[] worlds;
+    private TextDisplay[] displays;
+
+    // 正在坠落的句柄的紧凑列表
+    private int[] active;
+    private int[] activePosition; // 句柄在紧凑列表中的位置，-1表示不在列表中
+    private int activeCount = 0;
+    private int cursor = 0; // 超出步进上限时轮流推进
+
+    // 空闲句柄
+    private int[] freeHandles;
+    private int freeCount = 0;
+    private int nextHandle = 0;
+
+    // 复用的传送位置，避免每次传送都创建新对象
+    private final Location scratch = new Location(null, 0, 0, 0);
+
+    // 配置参数
+    private int maxStepsPerTick; // 每tick最多推进的坠落字符数
+    private int teleportInterval = 1; // 每隔多少tick发送一次位置，由客户端在其间插值
+
+    // 统计数据
+    private long lastStepNanos = 0;
+    private int lastStepCount = 0;
+
+    public FallPhysicsEngine(MiSidetext plugin) {
+        this.plugin = plugin;
+        this.solidityCache = new BlockSolidityCache(plugin);
+        allocate(64);
+        loadConfig();
+    }
+
+    /**
+     * 加载配置
+     */
+    public void loadConfig() {
+        solidityCache.loadConfig();
+        this.maxStepsPerTick = Math.max(1, plugin.getConfig().getInt("performance.physics.max-steps-per-tick", 512));
+    }
+
+    /**
+     * 分配或扩容状态数组
+     */
+    private void allocate(int capacity) {
+        posX = grow(posX, capacity);
+        posY = grow(posY, capacity);
+        posZ = grow(posZ, capacity);
+        velX = grow(velX, capacity);
+        velY = grow(velY, capacity);
+        velZ = grow(velZ, capacity);
+        rotX = grow(rotX, capacity);
+        rotY = grow(rotY, capacity);
+        rotZ = grow(rotZ, capacity);
+        quatX = grow(quatX, capacity);
+        quatY = grow(quatY, capacity);
+        quatZ = grow(quatZ, capacity);
+        quatW = grow(quatW, capacity);
+        stillTicks = grow(stillTicks, capacity);
+        teleportCountdown = grow(teleportCountdown, capacity);
+        state = state == null ? new byte[capacity] : Arrays.copyOf(state, capacity);
+        worlds = worlds == null ? new World[capacity] : Arrays.copyOf(worlds, capacity);
+        displays = displays == null ? new TextDisplay[capacity] : Arrays.copyOf(displays, capacity);
+        active = grow(active, capacity);
+        freeHandles = grow(freeHandles, capacity);
+
+        int oldLength = activePosition == null ? 0 : activePosition.length;
+        activePosition = grow(activePosition, capacity);
+        Arrays.fill(activePosition, oldLength, capacity, -1);
+    }
+
+    private static double[] grow(double[] array, int capacity) {
+        return array == null ? new double[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static float[] grow(float[] array, int capacity) {
+        return array == null ? new float[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    /**
+     * 加入一个坠落字符
+     * @return 句柄
+     */
+    public int add(TextDisplay display) {
+        int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        } else {
+            if (nextHandle == state.length) {
+                allocate(state.length * 2);
+            }
+            handle = nextHandle++;
+        }
+
+        Location location = display.getLocation();
+        posX[handle] = location.getX();
+        posY[handle] = location.getY();
+        posZ[handle] = location.getZ();
+        velX[handle] = (Math.random() - 0.5) * 0.2; // 初始X速度
+        velY[handle] = 0.15; // 初始Y速度（轻微向上）
+        velZ[handle] = (Math.random() - 0.5) * 0.2; // 初始Z速度
+        rotX[handle] = 0;
+        rotY[handle] = 0;
+        rotZ[handle] = 0;
+        quatX[handle] = 0;
+        quatY[handle] = 0;
+        quatZ[handle] = 0;
+        quatW[handle] = 1;
+        stillTicks[handle] = 0;
+        // 错开各字符发送位置的tick，避免数据包集中在同一tick
+        teleportCountdown[handle] = 1 + (int) (Math.random() * teleportInterval);
+        display.setTeleportDuration(teleportInterval > 1 ? teleportInterval : 0);
+        state[handle] = FALLING;
+        worlds[handle] = location.getWorld();
+        displays[handle] = display;
+
+        activePosition[handle] = activeCount;
+        active[activeCount++] = handle;
+        return handle;
+    }
+
+    /**
+     * 释放句柄
+     */
+    public void release(int handle) {
+        if (handle < 0 || handle >= nextHandle || state[handle] == FREE) {
+            return;
+        }
+        removeActive(handle);
+        if (!displays[handle].isDead()) {
+            displays[handle].setTeleportDuration(0);
+        }
+        state[handle] = FREE;
+        worlds[handle] = null;
+        displays[handle] = null;
+        freeHandles[freeCount++] = handle;
+    }
+
+    /**
+     * 从紧凑列表中移除（与末尾交换）
+     */
+    private void removeActive(int handle) {
+        int position = activePosition[handle];
+        if (position < 0) {
+            return;
+        }
+        int last = active[--activeCount];
+        active[position] = last;
+        activePosition[last] = position;
+        activePosition[handle] = -1;
+    }
+
+    /**
+     * 推进所有坠落字符，单tick最多推进maxStepsPerTick个
+     */
+    public void step() {
+        long start = System.nanoTime();
+
+        solidityCache.beginTick();
+
+        int steps = Math.min(activeCount, maxStepsPerTick);
+        int position = activeCount == 0 ? 0 : cursor % activeCount;
+        for (int done = 0; done < steps && activeCount > 0; done++) {
+            if (position >= activeCount) {
+                position = 0;
+            }
+            int handle = active[position];
+            if (stepHandle(handle)) {
+                // 已着地：移出紧凑列表，末尾的句柄换到当前位置
+                removeActive(handle);
+            } else {
+                position++;
+            }
+        }
+        cursor = position;
+
+        lastStepCount = steps;
+        lastStepNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * 推进单个坠落字符
+     * @return 是否已着地
+     */
+    private boolean stepHandle(int h) {
+        TextDisplay display = displays[h];
+        World world = worlds[h];
+        if (display.isDead()) {
+            state[h] = SETTLED;
+            return true;
+        }
+        boolean sendPosition = teleportInterval <= 1 || --teleportCountdown[h] <= 0;
+        if (sendPosition) {
+            teleportCountdown[h] = teleportInterval;
+        }
+
+        // 应用重力
+        velY[h] += GRAVITY;
+
+        // 应用摩擦力
+        velX[h] *= FRICTION;
+        velZ[h] *= FRICTION;
+
+        double x = posX[h];
+        double y = posY[h];
+        double z = posZ[h];
+
+        // 计算下一位置
+        double newX = x + velX[h];
+        double newY = y + velY[h];
+        double newZ = z + velZ[h];
+
+        // 碰撞检测 - X方向
+        int hitX = query(world, newX, y, z);
+        if (hitX == BlockSolidityCache.SOLID) {
+            velX[h] = -velX[h] * RESTITUTION;
+            newX = x;
+        }
+
+        // 碰撞检测 - Z方向
+        int hitZ = query(world, x, y, newZ);
+        if (hitZ == BlockSolidityCache.SOLID) {
+            velZ[h] = -velZ[h] * RESTITUTION;
+            newZ = z;
+        }
+
+        // 碰撞检测 - Y方向（地面检测）
+        int hitY = query(world, newX, newY - 0.1, newZ);
+        if (hitX == BlockSolidityCache.UNLOADED || hitZ == BlockSolidityCache.UNLOADED || hitY == BlockSolidityCache.UNLOADED) {
+            // 即将进入未加载的区块：停在原地着地，不触发区块加载
+            settle(h);
+            return true;
+        }
+        boolean onGround = hitY == BlockSolidityCache.SOLID;
+        if (onGround && velY[h] < 0) { // 只在下落时处理碰撞
+            velY[h] = -velY[h] * RESTITUTION * 0.5; // 减小反弹高度
+            newY = Math.floor(newY - 0.1) + 1.0; // 将位置放在方块顶部
+        }
+
+        // 更新位置
+        posX[h] = newX;
+        posY[h] = newY;
+        posZ[h] = newZ;
+        if (sendPosition) {
+            teleport(h);
+        }
+
+        // 计算速度大小
+        double vx = velX[h];
+        double vy = velY[h];
+        double vz = velZ[h];
+        double speed = Math.sqrt(vx * vx + vy * vy + vz * vz);
+
+        // 检查是否静止不动
+        if (speed < 0.03) {
+            stillTicks[h]++;
+        } else {
+            stillTicks[h] = 0;
+        }
+
+        // 检查是否着地（速度很小且静止了一段时间，或者位于地面上）
+        if (stillTicks[h] >= 10 || (Math.abs(vy) < 0.05 && onGround)) {
+            settle(h);
+            return true;
+        }
+
+        // 只有在移动时才应用旋转
+        if (speed > 0.01) {
+            // 基于速度方向的自然旋转
+            rotY[h] += (float) (vx * 0.2); // 左右移动产生Y轴旋转
+            rotX[h] += (float) (vz * 0.2); // 前后移动产生X轴旋转
+            rotZ[h] += (float) ((Math.random() - 0.5) * 0.02); // 轻微Z轴随机旋转
+        }
+
+        // 计算旋转轴和角度
+        float qx = (float) Math.sin(rotX[h] * 0.5) * 0.3f;
+        float qy = (float) Math.sin(rotY[h] * 0.5) * 0.3f;
+        float qz = (float) Math.sin(rotZ[h] * 0.5) * 0.9f;
+        float qw = (float) Math.cos(rotX[h] * 0.5) + (float) Math.cos(rotY[h] * 0.5) + (float) Math.cos(rotZ[h] * 0.5);
+
+        // 归一化旋转轴
+        float length = (float) Math.sqrt(qx * qx + qy * qy + qz * qz + qw * qw);
+        if (length > 0) {
+            qx /= length;
+            qy /= length;
+            qz /= length;
+            qw /= length;
+        }
+        quatX[h] = qx;
+        quatY[h] = qy;
+        quatZ[h] = qz;
+        quatW[h] = qw;
+        return false;
+    }
+
+    /**
+     * 将实体传送到句柄当前的位置
+     */
+    private void teleport(int h) {
+        scratch.setWorld(worlds[h]);
+        scratch.setX(posX[h]);
+        scratch.setY(posY[h]);
+        scratch.setZ(posZ[h]);
+        displays[h].teleport(scratch);
+    }
+
+    /**
+     * 标记为已着地，并发送最终位置
+     */
+    private void settle(int h) {
+        if (teleportInterval > 1) {
+            teleport(h);
+        }
+        // 给字符一个轻微的随机倾斜，让它看起来像是自然地靠在方块上
+        quatX[h] = (float) ((Math.random() - 0.5) * 0.2); // 轻微X轴倾斜
+        quatY[h] = 0;
+        quatZ[h] = (float) ((Math.random() - 0.5) * 0.2); // 轻微Z轴倾斜
+        quatW[h] = 1.0f;
+        state[h] = SETTLED;
+    }
+
+    /**
+     * 查询坐标所在方块是否为固体
+     */
+    private int query(World world, double x, double y, double z) {
+        return solidityCache.query(world, (int) Math.floor(x), (int) Math.floor(y), (int) Math.floor(z));
+    }
+
+    /**
+     * 获取方块固体缓存
+     */
+    public BlockSolidityCache getSolidityCache() {
+        return solidityCache;
+    }
+
+    /**
+     * 将句柄当前的旋转写入四元数
+     */
+    public void writeRotation(int handle, Quaternionf rotation) {
+        rotation.set(quatX[handle], quatY[handle], quatZ[handle], quatW[handle]);
+    }
+
+    /**
+     * 检查句柄是否已着地
+     */
+    public boolean isSettled(int handle) {
+        return state[handle] == SETTLED;
+    }
+
+    /**
+     * 获取正在坠落的字符数
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * 获取最近一次步进耗时（纳秒）
+     */
+    public long getLastStepNanos() {
+        return lastStepNanos;
+    }
+
+    /**
+     * 获取最近一次步进推进的字符数
+     */
+    public int getLastStepCount() {
+        return lastStepCount;
+    }
+
+    /**
+     * 设置发送位置的间隔（tick），大于1时使用客户端传送插值
+     */
+    public void setTeleportInterval(int teleportInterval) {
+        this.teleportInterval = Math.max(1, teleportInterval);
+    }
+
+    public int getMaxStepsPerTick() {
+        return maxStepsPerTick;
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        solidityCache.cleanup();
+        Arrays.fill(state, FREE);
+        Arrays.fill(worlds, null);
+        Arrays.fill(displays, null);
+        Arrays.fill(activePosition, -1);
+        activeCount = 0;
+        freeCount = 0;
+        nextHandle = 0;
+        cursor = 0;
+    }
+}
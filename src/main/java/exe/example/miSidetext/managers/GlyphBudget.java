@@ -0,0 +1,301 @@
+package exe.example.miSidetext.managers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 字符实体预算 - 在生成侧边文本之前检查全局、每个世界和每个玩家的实体上限，
+ * 预算不足时按配置的策略处理
+ */
+public class GlyphBudget {
+
+    /**
+     * 预算不足时的处理策略
+     */
+    public enum Policy {
+        EVICT_OLDEST, // 移除最早的消息
+        SHORTEN, // 让最早的消息立即渐隐
+        DROP_NEW; // 丢弃新消息的效果（聊天消息照常发送）
+
+        public static Policy fromConfig(String value) {
+            if (value == null) {
+                return EVICT_OLDEST;
+            }
+            return switch (value.toLowerCase()) {
+                case "shorten" -> SHORTEN;
+                case "drop-new" -> DROP_NEW;
+                default -> EVICT_OLDEST;
+            };
+        }
+    }
+
+    private final MiSidetext plugin;
+    // 按准入顺序排列的消息，最早的在队首
+    private final Deque<Reservation> reservations = new ArrayDeque<>();
+    private final Map<UUID, Integer> worldCounts = new HashMap<>();
+    private final Map<UUID, Integer> playerCounts = new HashMap<>();
+    private int globalCount = 0;
+
+    // 配置参数
+    private int maxGlobal; // 全局最大字符实体数
+    private int maxPerWorld; // 每个世界最大字符实体数
+    private int maxPerPlayer; // 每个玩家最大字符实体数
+    private Policy policy;
+
+    // 统计数据
+    private long admittedCount = 0;
+    private long evictedCount = 0;
+    private long shortenedCount = 0;
+    private long droppedCount = 0;
+
+    public GlyphBudget(MiSidetext plugin) {
+        this.plugin = plugin;
+        loadConfig();
+    }
+
+    /**
+     * 加载配置
+     */
+    public void loadConfig() {
+        this.maxGlobal = plugin.getConfig().getInt("performance.max-active-entities", 200);
+        this.maxPerWorld = plugin.getConfig().getInt("performance.budget.max-per-world", maxGlobal);
+        this.maxPerPlayer = plugin.getConfig().getInt("performance.budget.max-per-player", 60);
+        this.policy = Policy.fromConfig(plugin.getConfig().getString("performance.budget.policy", "evict-oldest"));
+    }
+
+    /**
+     * 尝试为新消息申请预算
+     * @param glyphs 该消息需要的字符实体数
+     * @return 申请到的预算，被丢弃时返回null
+     */
+    public Reservation tryAdmit(UUID playerId, UUID worldId, int glyphs) {
+        // 单条消息超过任一上限时无论如何都放不下
+        if (glyphs > Math.min(maxGlobal, Math.min(maxPerWorld, maxPerPlayer))) {
+            droppedCount++;
+            return null;
+        }
+
+        if (!fits(playerId, worldId, glyphs)) {
+            switch (policy) {
+                case EVICT_OLDEST -> {
+                    reclaim(playerId, worldId, glyphs, false);
+                    if (!fits(playerId, worldId, glyphs)) {
+                        droppedCount++;
+                        return null;
+                    }
+                }
+                case SHORTEN -> {
+                    // 缩短会立即释放尚未生成的部分；已生成的实体渐隐结束前仍占用预算，
+                    // 腾不出足够空间时丢弃新消息，上限始终有效
+                    reclaim(playerId, worldId, glyphs, true);
+                    if (!fits(playerId, worldId, glyphs)) {
+                        droppedCount++;
+                        return null;
+                    }
+                }
+                case DROP_NEW -> {
+                    droppedCount++;
+                    return null;
+                }
+            }
+        }
+
+        Reservation reservation = new Reservation(playerId, worldId);
+        reservations.addLast(reservation);
+        adjust(reservation, glyphs);
+        admittedCount++;
+        return reservation;
+    }
+
+    /**
+     * 检查剩余预算是否足够
+     */
+    private boolean fits(UUID playerId, UUID worldId, int glyphs) {
+        return globalCount + glyphs <= maxGlobal
+            && worldCounts.getOrDefault(worldId, 0) + glyphs <= maxPerWorld
+            && playerCounts.getOrDefault(playerId, 0) + glyphs <= maxPerPlayer;
+    }
+
+    /**
+     * 从最早的消息开始回收预算，优先回收超出上限的范围（玩家、世界或全局）内的消息
+     * @param shorten 为true时缩短消息，否则直接移除
+     */
+    private void reclaim(UUID playerId, UUID worldId, int glyphs, boolean shorten) {
+        boolean playerFull = playerCounts.getOrDefault(playerId, 0) + glyphs > maxPerPlayer;
+        boolean worldFull = worldCounts.getOrDefault(worldId, 0) + glyphs > maxPerWorld;
+
+        // 需要回收的数量为各范围超出部分的最大值
+        int needed = 0;
+        if (playerFull) {
+            needed = Math.max(needed, playerCounts.getOrDefault(playerId, 0) + glyphs - maxPerPlayer);
+        }
+        if (worldFull) {
+            needed = Math.max(needed, worldCounts.getOrDefault(worldId, 0) + glyphs - maxPerWorld);
+        }
+        needed = Math.max(needed, globalCount + glyphs - maxGlobal);
+
+        // 先收集，避免回调修改队列
+        List<Reservation> victims = new ArrayList<>();
+        int reclaimed = 0;
+        for (Reservation reservation : reservations) {
+            if (reclaimed >= needed) {
+                break;
+            }
+            if (reservation.shortened) {
+                continue;
+            }
+            if (playerFull && !reservation.playerId.equals(playerId)) {
+                continue;
+            }
+            if (!playerFull && worldFull && !reservation.worldId.equals(worldId)) {
+                continue;
+            }
+            victims.add(reservation);
+            reclaimed += reservation.glyphs;
+        }
+
+        for (Reservation victim : victims) {
+            if (shorten) {
+                victim.shortened = true;
+                shortenedCount++;
+                if (victim.shortenAction != null) {
+                    victim.shortenAction.run();
+                }
+            } else {
+                evictedCount++;
+                if (victim.evictAction != null) {
+                    victim.evictAction.run();
+                }
+                close(victim);
+            }
+        }
+    }
+
+    /**
+     * 释放消息中的一个或多个字符实体的预算
+     */
+    public void release(Reservation reservation, int glyphs) {
+        if (reservation == null || reservation.closed || glyphs <= 0) {
+            return;
+        }
+        adjust(reservation, -Math.min(glyphs, reservation.glyphs));
+        if (reservation.glyphs == 0) {
+            close(reservation);
+        }
+    }
+
+    /**
+     * 将消息的预算缩减为仍存活的字符实体数（取消尚未生成的部分）
+     */
+    public void shrink(Reservation reservation, int liveGlyphs) {
+        if (reservation == null || reservation.closed) {
+            return;
+        }
+        release(reservation, reservation.glyphs - liveGlyphs);
+    }
+
+    /**
+     * 结束消息，释放其剩余的全部预算
+     */
+    public void close(Reservation reservation) {
+        if (reservation == null || reservation.closed) {
+            return;
+        }
+        adjust(reservation, -reservation.glyphs);
+        reservation.closed = true;
+        reservations.remove(reservation);
+    }
+
+    /**
+     * 调整各范围的计数
+     */
+    private void adjust(Reservation reservation, int delta) {
+        reservation.glyphs += delta;
+        globalCount += delta;
+        worldCounts.merge(reservation.worldId, delta, Integer::sum);
+        playerCounts.merge(reservation.playerId, delta, Integer::sum);
+        if (worldCounts.get(reservation.worldId) <= 0) {
+            worldCounts.remove(reservation.worldId);
+        }
+        if (playerCounts.get(reservation.playerId) <= 0) {
+            playerCounts.remove(reservation.playerId);
+        }
+    }
+
+    public int getGlobalCount() {
+        return globalCount;
+    }
+
+    public int getMaxGlobal() {
+        return maxGlobal;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public long getAdmittedCount() {
+        return admittedCount;
+    }
+
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    public long getShortenedCount() {
+        return shortenedCount;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        reservations.clear();
+        worldCounts.clear();
+        playerCounts.clear();
+        globalCount = 0;
+    }
+
+    /**
+     * 单条消息占用的预算
+     */
+    public static class Reservation {
+        private final UUID playerId;
+        private final UUID worldId;
+        private int glyphs = 0; // 仍占用的字符实体数（包括尚未生成的）
+        private boolean shortened = false;
+        private boolean closed = false;
+        private Runnable evictAction;
+        private Runnable shortenAction;
+
+        Reservation(UUID playerId, UUID worldId) {
+            this.playerId = playerId;
+            this.worldId = worldId;
+        }
+
+        /**
+         * 设置消息被移除时执行的操作
+         */
+        public void onEvict(Runnable action) {
+            this.evictAction = action;
+        }
+
+        /**
+         * 设置消息被缩短时执行的操作
+         */
+        public void onShorten(Runnable action) {
+            this.shortenAction = action;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package exe.example.miSidetext.managers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.bukkit.entity.TextDisplay;
+
+/**
+ * 字符实体生命周期登记表 - 每个在用的字符实体对应一个句柄，按实体、玩家、消息和世界分组索引，
+ * 通过句柄登记和注销都是O(1)
+ */
+public class GlyphRegistry {
+
+    // 估算内存用：每个句柄对象及其在四个索引中的条目大约占用的字节数
+    private static final long BYTES_PER_HANDLE = 48 + 4 * 64;
+    // 每个分组集合的固定开销
+    private static final long BYTES_PER_GROUP = 160;
+
+    private final Map<UUID, Handle> byEntity = new HashMap<>();
+    private final Map<UUID, Set<Handle>> byPlayer = new HashMap<>();
+    private final Map<UUID, Set<Handle>> byWorld = new HashMap<>();
+    private final Map<MessageAudience, Set<Handle>> byMessage = new IdentityHashMap<>();
+
+    // 统计数据
+    private long registeredCount = 0;
+    private long sweptCount = 0;
+
+    /**
+     * 登记新生成的字符实体
+     */
+    public Handle register(TextDisplay display, MessageAudience message, UUID playerId) {
+        Handle handle = new Handle(display, message, playerId, display.getWorld().getUID());
+        Handle previous = byEntity.put(display.getUniqueId(), handle);
+        if (previous != null) {
+            // 同一实体被重复登记时，旧句柄作废
+            removeFromGroups(previous);
+        }
+        byPlayer.computeIfAbsent(playerId, id -> new LinkedHashSet<>()).add(handle);
+        byWorld.computeIfAbsent(handle.worldId, id -> new LinkedHashSet<>()).add(handle);
+        byMessage.computeIfAbsent(message, key -> new LinkedHashSet<>()).add(handle);
+        registeredCount++;
+        return handle;
+    }
+
+    /**
+     * 获取实体对应的句柄，未登记时返回null
+     */
+    public Handle get(TextDisplay display) {
+        return display == null ? null : byEntity.get(display.getUniqueId());
+    }
+
+    /**
+     * 注销句柄
+     * @return 句柄此前是否处于登记状态
+     */
+    public boolean unregister(Handle handle) {
+        if (handle == null || handle.released) {
+            return false;
+        }
+        byEntity.remove(handle.display.getUniqueId(), handle);
+        removeFromGroups(handle);
+        return true;
+    }
+
+    private void removeFromGroups(Handle handle) {
+        handle.released = true;
+        removeFromGroup(byPlayer, handle.playerId, handle);
+        removeFromGroup(byWorld, handle.worldId, handle);
+        removeFromGroup(byMessage, handle.message, handle);
+    }
+
+    private static <K> void removeFromGroup(Map<K, Set<Handle>> groups, K key, Handle handle) {
+        Set<Handle> group = groups.get(key);
+        if (group != null && group.remove(handle) && group.isEmpty()) {
+            groups.remove(key);
+        }
+    }
+
+    /**
+     * 获取所有句柄（副本）
+     */
+    public List<Handle> getAll() {
+        return new ArrayList<>(byEntity.values());
+    }
+
+    /**
+     * 获取玩家的所有句柄（副本）
+     */
+    public List<Handle> getByPlayer(UUID playerId) {
+        return copy(byPlayer.get(playerId));
+    }
+
+    /**
+     * 获取世界中的所有句柄（副本）
+     */
+    public List<Handle> getByWorld(UUID worldId) {
+        return copy(byWorld.get(worldId));
+    }
+
+    /**
+     * 获取消息的所有句柄（副本）
+     */
+    public List<Handle> getByMessage(MessageAudience message) {
+        return copy(byMessage.get(message));
+    }
+
+    /**
+     * 获取消息当前的句柄数
+     */
+    public int countByMessage(MessageAudience message) {
+        Set<Handle> group = byMessage.get(message);
+        return group == null ? 0 : group.size();
+    }
+
+    private static List<Handle> copy(Set<Handle> group) {
+        return group == null ? Collections.emptyList() : new ArrayList<>(group);
+    }
+
+    /**
+     * 清扫失效的句柄：实体已不存在，或存活时间超过上限
+     * @param maxAgeMillis 最长存活时间（毫秒），小于等于0表示不限制
+     * @param release 对每个需要清扫的句柄执行的归还操作，必须注销该句柄
+     * @return 清扫掉的句柄数
+     */
+    public int sweep(long maxAgeMillis, Consumer<Handle> release) {
+        long now = System.currentTimeMillis();
+        List<Handle> stale = new ArrayList<>();
+        for (Handle handle : byEntity.values()) {
+            if (!handle.display.isValid() || (maxAgeMillis > 0 && now - handle.createdAt > maxAgeMillis)) {
+                stale.add(handle);
+            }
+        }
+        for (Handle handle : stale) {
+            release.accept(handle);
+            // 归还操作未注销时兜底
+            unregister(handle);
+        }
+        sweptCount += stale.size();
+        return stale.size();
+    }
+
+    /**
+     * 获取登记中的句柄数
+     */
+    public int size() {
+        return byEntity.size();
+    }
+
+    public int getPlayerGroupCount() {
+        return byPlayer.size();
+    }
+
+    public int getMessageGroupCount() {
+        return byMessage.size();
+    }
+
+    public int getWorldGroupCount() {
+        return byWorld.size();
+    }
+
+    public long getRegisteredCount() {
+        return registeredCount;
+    }
+
+    public long getSweptCount() {
+        return sweptCount;
+    }
+
+    /**
+     * 估算登记表占用的内存（字节）
+     */
+    public long estimateMemoryBytes() {
+        int groups = byPlayer.size() + byWorld.size() + byMessage.size();
+        return byEntity.size() * BYTES_PER_HANDLE + groups * BYTES_PER_GROUP;
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        byEntity.values().forEach(handle -> handle.released = true);
+        byEntity.clear();
+        byPlayer.clear();
+        byWorld.clear();
+        byMessage.clear();
+    }
+
+    /**
+     * 单个在用字符实体的句柄
+     */
+    public static class Handle {
+        private final TextDisplay display;
+        private final MessageAudience message;
+        private final UUID playerId;
+        private final UUID worldId;
+        private final long createdAt = System.currentTimeMillis();
+        private TimingWheel.Timer timer; // 该实体等待中的延迟回调
+        private boolean released = false;
+
+        Handle(TextDisplay display, MessageAudience message, UUID playerId, UUID worldId) {
+            this.display = display;
+            this.message = message;
+            this.playerId = playerId;
+            this.worldId = worldId;
+        }
+
+        public TextDisplay getDisplay() {
+            return display;
+        }
+
+        public MessageAudience getMessage() {
+            return message;
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        /**
+         * 获取该实体等待中的延迟回调
+         */
+        public TimingWheel.Timer getTimer() {
+            return timer;
+        }
+
+        /**
+         * 设置该实体等待中的延迟回调，实体归还时一并取消；不会取消之前的回调，替换前由调用方取消
+         */
+        public void setTimer(TimingWheel.Timer timer) {
+            this.timer = timer;
+        }
+
+        public boolean isReleased() {
+            return released;
+        }
+    }
+}
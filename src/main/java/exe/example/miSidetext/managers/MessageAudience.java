@@ -0,0 +1,174 @@
+package exe.example.miSidetext.managers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.TextDisplay;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 单条消息的观看者集合 - 侧边文本实体默认对所有玩家隐藏，只向收到该消息的玩家显示
+ */
+public class MessageAudience {
+
+    // 没有生成任何实体时，最长保留时间（毫秒）
+    private static final long EMPTY_TIMEOUT = 60_000;
+
+    private final MiSidetext plugin;
+    private final Location origin;
+    private final double radiusSquared; // 小于0表示全服
+    private final Set<UUID> viewers = new HashSet<>();
+    private final Set<TextDisplay> displays = new LinkedHashSet<>();
+    private final long createdAt = System.currentTimeMillis();
+    private boolean spawnedAny = false;
+    private GlyphBudget.Reservation reservation;
+
+    /**
+     * @param origin 消息发出的位置
+     * @param radius 频道半径，小于0表示全服
+     * @param recipients 实际收到消息的玩家
+     */
+    public MessageAudience(MiSidetext plugin, Location origin, double radius, Collection<? extends Player> recipients) {
+        this.plugin = plugin;
+        this.origin = origin.clone();
+        this.radiusSquared = radius < 0 ? -1 : radius * radius;
+        for (Player recipient : recipients) {
+            viewers.add(recipient.getUniqueId());
+        }
+    }
+
+    /**
+     * 登记新生成的字符实体（已默认隐藏），向当前观看者显示
+     */
+    public void addDisplay(TextDisplay display) {
+        for (UUID viewerId : viewers) {
+            Player viewer = Bukkit.getPlayer(viewerId);
+            if (viewer != null) {
+                viewer.showEntity(plugin, display);
+            }
+        }
+        displays.add(display);
+        spawnedAny = true;
+    }
+
+    /**
+     * 移除实体并对所有观看者隐藏（实体归还对象池前调用）
+     * @return 实体此前是否属于该消息
+     */
+    public boolean removeDisplay(TextDisplay display) {
+        if (!displays.remove(display)) {
+            return false;
+        }
+        for (UUID viewerId : viewers) {
+            Player viewer = Bukkit.getPlayer(viewerId);
+            if (viewer != null) {
+                viewer.hideEntity(plugin, display);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 刷新观看者：移除已离线或离开频道范围的玩家，加入新进入范围的玩家
+     * @return 本次清理掉的已失效实体数
+     */
+    public int refresh() {
+        int before = displays.size();
+        displays.removeIf(display -> display == null || display.isDead());
+        int pruned = before - displays.size();
+        if (displays.isEmpty()) {
+            return pruned;
+        }
+
+        // 使用玩家空间索引的快照判断范围，不逐个读取玩家位置
+        PlayerSpatialIndex.Snapshot snapshot = plugin.getPlayerSpatialIndex().getSnapshot();
+        Iterator<UUID> iterator = viewers.iterator();
+        while (iterator.hasNext()) {
+            Player viewer = Bukkit.getPlayer(iterator.next());
+            if (viewer == null) {
+                iterator.remove();
+            } else if (!isInRange(snapshot.get(viewer.getUniqueId()))) {
+                for (TextDisplay display : displays) {
+                    viewer.hideEntity(plugin, display);
+                }
+                iterator.remove();
+            }
+        }
+
+        Collection<? extends Player> candidates = radiusSquared < 0 ? Bukkit.getOnlinePlayers()
+            : snapshot.nearby(origin.getWorld().getUID(), origin.getX(), origin.getY(), origin.getZ(), Math.sqrt(radiusSquared));
+        for (Player player : candidates) {
+            if (!viewers.contains(player.getUniqueId())) {
+                for (TextDisplay display : displays) {
+                    player.showEntity(plugin, display);
+                }
+                viewers.add(player.getUniqueId());
+            }
+        }
+        return pruned;
+    }
+
+    /**
+     * 检查玩家（空间索引快照中的位置）是否在该消息的频道范围内
+     */
+    private boolean isInRange(PlayerSpatialIndex.Entry entry) {
+        if (radiusSquared < 0) {
+            return true;
+        }
+        if (entry == null || !entry.worldId().equals(origin.getWorld().getUID())) {
+            return false;
+        }
+        double dx = entry.x() - origin.getX();
+        double dy = entry.y() - origin.getY();
+        double dz = entry.z() - origin.getZ();
+        return dx * dx + dy * dy + dz * dz <= radiusSquared;
+    }
+
+    /**
+     * 消息的所有实体是否都已消失
+     */
+    public boolean isFinished() {
+        if (!displays.isEmpty()) {
+            return false;
+        }
+        return spawnedAny || System.currentTimeMillis() - createdAt > EMPTY_TIMEOUT;
+    }
+
+    /**
+     * 获取该消息当前的所有实体
+     */
+    public List<TextDisplay> getDisplays() {
+        return new ArrayList<>(displays);
+    }
+
+    /**
+     * 获取该消息占用的实体预算
+     */
+    public GlyphBudget.Reservation getReservation() {
+        return reservation;
+    }
+
+    /**
+     * 设置该消息占用的实体预算
+     */
+    public void setReservation(GlyphBudget.Reservation reservation) {
+        this.reservation = reservation;
+    }
+
+    /**
+     * 获取当前观看者数量
+     */
+    public int getViewerCount() {
+        return viewers.size();
+    }
+}
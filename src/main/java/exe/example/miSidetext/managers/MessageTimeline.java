@@ -0,0 +1,191 @@
+package exe.example.miSidetext.managers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 消息时间线 - 将一条消息的所有延迟事件按tick排序，由单个任务推进游标依次执行，
+ * 整条消息可以统一取消、暂停和快进
+ */
+public class MessageTimeline {
+
+    private final MiSidetext plugin;
+    // 按tick排序的事件，游标之前的事件已执行
+    private final List<Event> events = new ArrayList<>();
+    private int cursor = 0;
+    private long elapsedTicks = 0;
+    private boolean paused = false;
+    private boolean cancelled = false;
+    private BukkitTask cursorTask;
+
+    public MessageTimeline(MiSidetext plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 在时间线开始后的指定tick执行事件
+     */
+    public void at(long tick, Runnable action) {
+        if (cancelled) {
+            return;
+        }
+        Event event = new Event(Math.max(0, tick), action);
+
+        // 插入到相同tick的事件之后，保持添加顺序
+        int low = cursor;
+        int high = events.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (events.get(mid).tick <= event.tick) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        events.add(low, event);
+    }
+
+    /**
+     * 在当前时间之后的指定tick执行事件
+     */
+    public void after(long delay, Runnable action) {
+        at(elapsedTicks + delay, action);
+    }
+
+    /**
+     * 启动游标任务，立即执行第0个tick的事件
+     */
+    public void start() {
+        if (cursorTask != null || cancelled) {
+            return;
+        }
+        runDueEvents();
+        if (isFinished()) {
+            return;
+        }
+        cursorTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                if (paused) {
+                    return;
+                }
+                elapsedTicks++;
+                runDueEvents();
+                if (isFinished()) {
+                    stopTask();
+                }
+            }
+        }.runTaskTimer(plugin, 1, 1);
+    }
+
+    /**
+     * 执行所有已到期的事件
+     */
+    private void runDueEvents() {
+        while (!cancelled && cursor < events.size() && events.get(cursor).tick <= elapsedTicks) {
+            Event event = events.get(cursor++);
+            try {
+                event.action.run();
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("消息时间线事件执行失败: " + e.getMessage());
+            }
+        }
+        // 定期丢弃已执行的事件，避免列表只增不减
+        if (cursor > 32 && cursor * 2 > events.size()) {
+            events.subList(0, cursor).clear();
+            cursor = 0;
+        }
+    }
+
+    private void stopTask() {
+        if (cursorTask != null) {
+            cursorTask.cancel();
+            cursorTask = null;
+        }
+    }
+
+    /**
+     * 取消整条消息尚未执行的事件
+     */
+    public void cancel() {
+        cancelled = true;
+        events.clear();
+        cursor = 0;
+        stopTask();
+    }
+
+    /**
+     * 暂停时间线
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * 恢复时间线
+     */
+    public void resume() {
+        paused = false;
+    }
+
+    /**
+     * 快进指定tick数，期间到期的事件立即按顺序执行
+     */
+    public void fastForward(long ticks) {
+        if (cancelled || ticks <= 0) {
+            return;
+        }
+        elapsedTicks += ticks;
+        runDueEvents();
+        if (isFinished()) {
+            stopTask();
+        }
+    }
+
+    /**
+     * 快进到结束，立即按顺序执行所有剩余事件（包括执行过程中新加入的事件）
+     */
+    public void fastForward() {
+        while (!cancelled && cursor < events.size()) {
+            elapsedTicks = Math.max(elapsedTicks, events.get(events.size() - 1).tick);
+            runDueEvents();
+        }
+        stopTask();
+    }
+
+    /**
+     * 所有事件是否都已执行或已取消
+     */
+    public boolean isFinished() {
+        return cancelled || cursor >= events.size();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * 获取时间线已经过的tick数
+     */
+    public long getElapsedTicks() {
+        return elapsedTicks;
+    }
+
+    /**
+     * 获取尚未执行的事件数
+     */
+    public int getPendingEventCount() {
+        return events.size() - cursor;
+    }
+
+    /**
+     * 时间线上的单个事件
+     */
+    private record Event(long tick, Runnable action) {
+    }
+}
@@ -0,0 +1,266 @@
+package exe.example.miSidetext.managers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 禁言登记表 - 禁言结束时间保存在并发表中，任意线程都可以无锁地O(1)查询。
+ * 到期由延迟队列驱动，只取出已到期的禁言，不扫描全部禁言；
+ * 每次禁言都以定长记录追加到本地日志文件，重启后重放恢复，记录过多时压缩
+ */
+public class MuteRegistry {
+
+    // 日志记录：UUID、结束时间
+    private static final int RECORD_BYTES = 8 + 8 + 8;
+    // 关闭时等待写入线程的最长时间（毫秒）
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final MiSidetext plugin;
+    private final File journalFile;
+    private final Map<UUID, Long> muteEndTimes = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+    // 文件写入在单独的线程中进行，不阻塞聊天线程
+    private final ExecutorService ioExecutor;
+    private FileChannel journal;
+    private int journalRecords = 0; // 仅由写入线程访问
+    private BukkitTask expiryTask;
+
+    // 统计数据
+    private volatile long expiredCount = 0;
+
+    public MuteRegistry(MiSidetext plugin) {
+        this.plugin = plugin;
+        this.journalFile = new File(plugin.getDataFolder(), "mutes.dat");
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MiSidetext-Mutes");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // 恢复重启前仍未到期的禁言
+        load();
+        ioExecutor.execute(this::compact);
+        startExpiryTask();
+    }
+
+    /**
+     * 启动到期任务，每秒取出已到期的禁言
+     */
+    private void startExpiryTask() {
+        expiryTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                Expiry expiry;
+                while ((expiry = expiries.poll()) != null) {
+                    // 期间被重新禁言时结束时间已变化，不解除
+                    if (muteEndTimes.remove(expiry.playerId, expiry.endTime)) {
+                        expiredCount++;
+                    }
+                }
+            }
+        }.runTaskTimer(plugin, 20L, 20L);
+    }
+
+    /**
+     * 禁言玩家到指定时间（任意线程）
+     */
+    public void mute(UUID playerId, long endTime) {
+        muteEndTimes.put(playerId, endTime);
+        expiries.add(new Expiry(playerId, endTime));
+        if (!ioExecutor.isShutdown()) {
+            ioExecutor.execute(() -> append(playerId, endTime));
+        }
+    }
+
+    /**
+     * 玩家是否处于禁言中（任意线程）
+     */
+    public boolean isMuted(UUID playerId) {
+        Long endTime = muteEndTimes.get(playerId);
+        // 到期任务尚未处理时也按结束时间判断
+        return endTime != null && endTime > System.currentTimeMillis();
+    }
+
+    /**
+     * 获取禁言结束时间，未禁言时返回0
+     */
+    public long getEndTime(UUID playerId) {
+        Long endTime = muteEndTimes.get(playerId);
+        return endTime == null ? 0 : endTime;
+    }
+
+    /**
+     * 从日志文件恢复禁言
+     */
+    private void load() {
+        if (!journalFile.isFile()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile.toPath())))) {
+            while (true) {
+                UUID playerId = new UUID(in.readLong(), in.readLong());
+                long endTime = in.readLong();
+                // 后写入的记录覆盖先写入的
+                if (endTime > now) {
+                    muteEndTimes.put(playerId, endTime);
+                } else {
+                    muteEndTimes.remove(playerId);
+                }
+            }
+        } catch (EOFException e) {
+            // 读到末尾，写了一半的记录直接忽略
+        } catch (IOException e) {
+            plugin.getLogger().warning(String.format("读取禁言记录失败: %s", e.getMessage()));
+        }
+        for (Map.Entry<UUID, Long> entry : muteEndTimes.entrySet()) {
+            expiries.add(new Expiry(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    /**
+     * 追加一条禁言记录（写入线程）
+     */
+    private void append(UUID playerId, long endTime) {
+        try {
+            if (journal == null) {
+                journal = FileChannel.open(journalFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            record.putLong(playerId.getMostSignificantBits())
+                .putLong(playerId.getLeastSignificantBits())
+                .putLong(endTime)
+                .flip();
+            while (record.hasRemaining()) {
+                journal.write(record);
+            }
+            journalRecords++;
+        } catch (IOException e) {
+            plugin.getLogger().warning(String.format("保存禁言记录失败: %s", e.getMessage()));
+            return;
+        }
+
+        // 过期记录占多数时压缩
+        if (journalRecords > 64 && journalRecords > muteEndTimes.size() * 4) {
+            compact();
+        }
+    }
+
+    /**
+     * 只保留仍在禁言中的记录重写日志文件：先写入临时文件再重命名（写入线程）
+     */
+    private void compact() {
+        File temp = new File(journalFile.getPath() + ".tmp");
+        long now = System.currentTimeMillis();
+        int written = 0;
+        try {
+            closeJournal();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+                for (Map.Entry<UUID, Long> entry : muteEndTimes.entrySet()) {
+                    if (entry.getValue() > now) {
+                        out.writeLong(entry.getKey().getMostSignificantBits());
+                        out.writeLong(entry.getKey().getLeastSignificantBits());
+                        out.writeLong(entry.getValue());
+                        written++;
+                    }
+                }
+            }
+            Files.move(temp.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journalRecords = written;
+        } catch (IOException e) {
+            temp.delete();
+            plugin.getLogger().warning(String.format("压缩禁言记录失败: %s", e.getMessage()));
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning(String.format("关闭禁言记录失败: %s", e.getMessage()));
+        }
+        journal = null;
+    }
+
+    /**
+     * 获取禁言中的玩家数
+     */
+    public int getMutedCount() {
+        return muteEndTimes.size();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount;
+    }
+
+    /**
+     * 停止到期任务，等待写入线程完成剩余的记录
+     */
+    public void cleanup() {
+        if (expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+        ioExecutor.execute(this::closeJournal);
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("禁言记录写入线程未能在限时内结束");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        muteEndTimes.clear();
+        expiries.clear();
+    }
+
+    /**
+     * 延迟队列中的禁言到期项
+     */
+    private static class Expiry implements Delayed {
+        private final UUID playerId;
+        private final long endTime;
+
+        Expiry(UUID playerId, long endTime) {
+            this.playerId = playerId;
+            this.endTime = endTime;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(endTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(endTime, ((Expiry) other).endTime);
+        }
+    }
+}
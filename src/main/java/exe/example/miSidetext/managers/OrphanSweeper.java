@@ -0,0 +1,171 @@
+package exe.example.miSidetext.managers;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.TextDisplay;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 残留实体清扫器 - 本插件生成的字符实体都不保存到世界，并在持久化数据中标记本次启动的会话ID。
+ * 服务器崩溃等原因残留在世界中的旧实体，在插件启用、世界加载和区块实体加载时分批移除，每tick检查的数量有上限
+ */
+public class OrphanSweeper {
+
+    private final MiSidetext plugin;
+    private final NamespacedKey glyphKey;
+    // 本次启动的会话ID，标记值不同的字符实体即为残留
+    private final long sessionId = ThreadLocalRandom.current().nextLong();
+
+    // 待展开的区块和待检查的实体
+    private final ArrayDeque<Chunk> pendingChunks = new ArrayDeque<>();
+    private final ArrayDeque<Entity> pendingEntities = new ArrayDeque<>();
+    private BukkitTask sweepTask;
+
+    // 配置参数
+    private int checksPerTick; // 每tick最多检查的实体数
+
+    // 统计数据
+    private long checkedCount = 0;
+    private long removedCount = 0;
+
+    public OrphanSweeper(MiSidetext plugin) {
+        this.plugin = plugin;
+        this.glyphKey = new NamespacedKey(plugin, "glyph");
+        loadConfig();
+
+        // 启用时检查所有已加载的世界
+        for (World world : Bukkit.getWorlds()) {
+            enqueueWorld(world);
+        }
+        startSweepTask();
+    }
+
+    /**
+     * 加载配置
+     */
+    public void loadConfig() {
+        this.checksPerTick = Math.max(1, plugin.getConfig().getInt("performance.orphan-sweeper.checks-per-tick", 200));
+    }
+
+    /**
+     * 启动清扫任务，每tick处理一批待检查的实体
+     */
+    private void startSweepTask() {
+        sweepTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                sweep();
+            }
+        }.runTaskTimer(plugin, 1, 1);
+    }
+
+    /**
+     * 标记新生成的字符实体：不保存到世界，并写入本次会话ID
+     */
+    public void tag(TextDisplay display) {
+        display.setPersistent(false);
+        display.getPersistentDataContainer().set(glyphKey, PersistentDataType.LONG, sessionId);
+    }
+
+    /**
+     * 将世界中所有已加载的区块加入检查队列
+     */
+    public void enqueueWorld(World world) {
+        Collections.addAll(pendingChunks, world.getLoadedChunks());
+    }
+
+    /**
+     * 将刚加载的实体加入检查队列，只保留文本实体
+     */
+    public void enqueueEntities(Iterable<? extends Entity> entities) {
+        for (Entity entity : entities) {
+            if (entity instanceof TextDisplay) {
+                pendingEntities.add(entity);
+            }
+        }
+    }
+
+    /**
+     * 检查一批实体，移除其中的残留字符实体
+     */
+    private void sweep() {
+        int budget = checksPerTick;
+        while (budget > 0) {
+            Entity entity = pendingEntities.poll();
+            if (entity == null) {
+                // 实体队列为空时展开下一个区块
+                Chunk chunk = pendingChunks.poll();
+                if (chunk == null) {
+                    return;
+                }
+                if (chunk.isLoaded()) {
+                    for (Entity chunkEntity : chunk.getEntities()) {
+                        if (chunkEntity instanceof TextDisplay) {
+                            pendingEntities.add(chunkEntity);
+                        }
+                    }
+                }
+                budget--;
+                continue;
+            }
+
+            budget--;
+            checkedCount++;
+            if (entity.isValid() && isOrphan(entity)) {
+                entity.remove();
+                removedCount++;
+            }
+        }
+    }
+
+    /**
+     * 是否为本插件之前的会话留下的字符实体
+     */
+    private boolean isOrphan(Entity entity) {
+        PersistentDataContainer container = entity.getPersistentDataContainer();
+        if (!container.has(glyphKey, PersistentDataType.LONG)) {
+            return false;
+        }
+        Long tagged = container.get(glyphKey, PersistentDataType.LONG);
+        return tagged == null || tagged != sessionId;
+    }
+
+    /**
+     * 获取等待检查的区块和实体数
+     */
+    public int getPendingCount() {
+        return pendingChunks.size() + pendingEntities.size();
+    }
+
+    public long getCheckedCount() {
+        return checkedCount;
+    }
+
+    public long getRemovedCount() {
+        return removedCount;
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        if (sweepTask != null) {
+            sweepTask.cancel();
+            sweepTask = null;
+        }
+        pendingChunks.clear();
+        pendingEntities.clear();
+    }
+}
@@ -78,6 +78,13 @@ public class PerformanceTestManager {
         }
     }
     
+    /**
+     * 获取服务器平均每tick耗时（毫秒）
+     */
+    public double getMSPT() {
+        return Bukkit.getAverageTickTime();
+    }
+    
     /**
      * 开始性能测试
      * @param player 执行测试的玩家
@@ -127,10 +134,85 @@ public class PerformanceTestManager {
         } else {
             player.sendMessage("§6[性能测试] §f当前TPS: " + String.format("%.2f", getTPS()));
             player.sendMessage("§6[性能测试] §f1分钟TPS: " + String.format("%.2f", getTPS(60)));
+            sendAnimationStats(player);
             player.sendMessage("§6[性能测试] §f没有正在进行的测试");
         }
     }
     
+    /**
+     * 发送动画引擎统计信息
+     */
+    private void sendAnimationStats(Player player) {
+        QualityGovernor qualityGovernor = plugin.getQualityGovernor();
+        player.sendMessage("§6[性能测试] §f当前MSPT: " + String.format("%.2f", getMSPT()) + "ms, 效果质量: "
+            + qualityGovernor.getTier().getDisplayName() + (qualityGovernor.isEnabled() ? "" : " (自动调节已关闭)"));
+        AnimationManager animationManager = plugin.getAnimationManager();
+        player.sendMessage("§6[性能测试] §f活跃字符实体: " + animationManager.getActiveGlyphCount()
+            + " (坠落: " + animationManager.getFallingGlyphCount()
+            + ", 渐隐: " + animationManager.getFadingGlyphCount() + ")");
+        player.sendMessage("§6[性能测试] §f动画步进耗时: " + String.format("%.3f", animationManager.getLastStepNanos() / 1_000_000.0)
+            + "ms (平均: " + String.format("%.3f", animationManager.getAverageStepNanos() / 1_000_000.0)
+            + "ms, 峰值: " + String.format("%.3f", animationManager.getPeakStepNanos() / 1_000_000.0) + "ms)");
+        FallPhysicsEngine physicsEngine = animationManager.getPhysicsEngine();
+        player.sendMessage("§6[性能测试] §f坠落物理: " + physicsEngine.getLastStepCount() + "/" + physicsEngine.getMaxStepsPerTick()
+            + " 步/tick, 耗时: " + String.format("%.3f", physicsEngine.getLastStepNanos() / 1_000_000.0) + "ms");
+        BlockSolidityCache solidityCache = physicsEngine.getSolidityCache();
+        player.sendMessage("§6[性能测试] §f方块缓存: " + solidityCache.getCachedChunkCount() + " 区块 (快照: "
+            + solidityCache.getSnapshotCount() + ", 未加载区块着地: " + solidityCache.getUnloadedHits() + ")");
+        GlyphBudget glyphBudget = sideTextManager.getGlyphBudget();
+        player.sendMessage("§6[性能测试] §f实体预算: " + glyphBudget.getGlobalCount() + "/" + glyphBudget.getMaxGlobal()
+            + " (策略: " + glyphBudget.getPolicy() + ", 准入: " + glyphBudget.getAdmittedCount()
+            + ", 移除: " + glyphBudget.getEvictedCount() + ", 缩短: " + glyphBudget.getShortenedCount()
+            + ", 丢弃: " + glyphBudget.getDroppedCount() + ")");
+        TextDisplayPool displayPool = sideTextManager.getDisplayPool();
+        player.sendMessage("§6[性能测试] §f实体对象池: " + displayPool.getPooledCount()
+            + " 空闲, 命中率: " + String.format("%.1f", displayPool.getHitRate() * 100)
+            + "% (命中: " + displayPool.getHits() + ", 未命中: " + displayPool.getMisses()
+            + ", 淘汰: " + displayPool.getEvictions() + ")");
+        GlyphRegistry glyphRegistry = sideTextManager.getGlyphRegistry();
+        player.sendMessage("§6[性能测试] §f实体登记表: " + glyphRegistry.size() + " 句柄 (玩家: "
+            + glyphRegistry.getPlayerGroupCount() + ", 消息: " + glyphRegistry.getMessageGroupCount()
+            + ", 世界: " + glyphRegistry.getWorldGroupCount() + "), 已清扫: " + glyphRegistry.getSweptCount()
+            + ", 估算内存: " + String.format("%.1f", glyphRegistry.estimateMemoryBytes() / 1024.0) + "KB");
+        OrphanSweeper orphanSweeper = sideTextManager.getOrphanSweeper();
+        player.sendMessage("§6[性能测试] §f残留实体清扫: " + orphanSweeper.getRemovedCount() + " 已移除, "
+            + orphanSweeper.getCheckedCount() + " 已检查, " + orphanSweeper.getPendingCount() + " 等待");
+        TimingWheel timingWheel = sideTextManager.getTimingWheel();
+        player.sendMessage("§6[性能测试] §f延迟回调: " + timingWheel.getPendingCount() + " 等待, 槽位占用: "
+            + timingWheel.getOccupiedSlots() + "/" + timingWheel.getSlotCount()
+            + ", 延迟: " + String.format("%.1f", timingWheel.getAverageLagMillis()) + "ms (峰值: "
+            + timingWheel.getPeakLagMillis() + "ms)");
+        ChatLogWriter logWriter = plugin.getChatManager().getLogWriter();
+        player.sendMessage("§6[性能测试] §f聊天日志: 队列 " + logWriter.getQueueDepth() + "/" + logWriter.getQueueCapacity()
+            + ", 丢弃: " + logWriter.getDroppedCount() + ", 提交耗时: "
+            + String.format("%.3f", logWriter.getAverageFlushNanos() / 1_000_000.0) + "ms (峰值: "
+            + String.format("%.3f", logWriter.getPeakFlushNanos() / 1_000_000.0) + "ms, 级别: "
+            + logWriter.getDurability() + ")");
+        ChatLogArchiver logArchiver = plugin.getChatManager().getLogArchiver();
+        player.sendMessage("§6[性能测试] §f聊天日志归档: 已压缩 " + logArchiver.getCompressedCount() + " 个分段 (节省: "
+            + String.format("%.1f", logArchiver.getSavedBytes() / 1024.0 / 1024.0) + "MB), 已清理: "
+            + logArchiver.getPrunedCount() + ", 等待: " + logArchiver.getPendingTasks());
+        ChatManager chatManager = plugin.getChatManager();
+        player.sendMessage("§6[性能测试] §f聊天管理: 刷屏检测 " + chatManager.getSpamLimiter().getTrackedCount()
+            + " 名玩家, 禁言中: " + chatManager.getMuteRegistry().getMutedCount()
+            + ", 已到期: " + chatManager.getMuteRegistry().getExpiredCount()
+            + ", 重复消息: " + chatManager.getDuplicateDetector().getSuppressedCount() + " 跳过特效/"
+            + chatManager.getDuplicateDetector().getBlockedCount() + " 拦截");
+        PlayerPreferencesManager preferencesManager = plugin.getPlayerPreferencesManager();
+        player.sendMessage("§6[性能测试] §f玩家偏好缓存: " + preferencesManager.getCachedCount() + " 名玩家 (预加载: "
+            + preferencesManager.getPreloadedCount() + ", 使用时加载: " + preferencesManager.getFallbackLoadCount()
+            + "), 待保存: " + preferencesManager.getDirtyCount() + ", 已写入: " + preferencesManager.getWrittenCount()
+            + ", 批量写入耗时: " + String.format("%.3f", preferencesManager.getLastFlushNanos() / 1_000_000.0) + "ms");
+        PreferenceStore store = preferencesManager.getStore();
+        if (store instanceof BinaryPreferenceStore binary) {
+            player.sendMessage("§6[性能测试] §f偏好存储: " + store.getName() + " (玩家: " + binary.getPlayerCount()
+                + ", 记录: " + binary.getRecordCount() + ", 文件: " + (binary.getFileSize() / 1024) + "KB, 整理次数: "
+                + binary.getCompactionCount() + ")");
+        } else {
+            player.sendMessage("§6[性能测试] §f偏好存储: " + store.getName());
+        }
+    }
+    
     /**
      * 内部类：性能测试实例
      */
@@ -203,6 +285,7 @@ public class PerformanceTestManager {
             player.sendMessage("§6[性能测试] §f已运行: " + elapsed + "/" + duration + "秒");
             player.sendMessage("§6[性能测试] §f已生成实体: " + entitiesSpawned);
             player.sendMessage("§6[性能测试] §f当前TPS: " + String.format("%.2f", currentTPS));
+            sendAnimationStats(player);
         }
         
         private String generateRandomText(int length) {
@@ -0,0 +1,47 @@
+package exe.example.miSidetext.managers;
+
+/**
+ * 玩家偏好设置的不可变快照 - 加载时解析一次，读取时不再查找YAML路径，修改时生成新的快照
+ * @param enabled 是否启用侧边文本
+ * @param typingSpeed 打字速度（毫秒/字符）
+ * @param bounceHeight 跳动高度
+ * @param fallDuration 掉落持续时间（秒）
+ * @param defaultChannel 默认聊天频道
+ * @param leftToRight 阅读方向是否从左到右
+ * @param usesDefaults 是否完全使用配置文件中的默认值（没有保存过的设置），重载配置时改用新的默认值
+ */
+public record PlayerPreferences(boolean enabled, long typingSpeed, double bounceHeight, double fallDuration,
+                                ChatManager.ChatChannel defaultChannel, boolean leftToRight, boolean usesDefaults) {
+
+    /**
+     * 从存储读取或由玩家修改的设置，不再跟随默认值
+     */
+    public PlayerPreferences(boolean enabled, long typingSpeed, double bounceHeight, double fallDuration,
+                             ChatManager.ChatChannel defaultChannel, boolean leftToRight) {
+        this(enabled, typingSpeed, bounceHeight, fallDuration, defaultChannel, leftToRight, false);
+    }
+
+    public PlayerPreferences withEnabled(boolean enabled) {
+        return new PlayerPreferences(enabled, typingSpeed, bounceHeight, fallDuration, defaultChannel, leftToRight);
+    }
+
+    public PlayerPreferences withTypingSpeed(long typingSpeed) {
+        return new PlayerPreferences(enabled, typingSpeed, bounceHeight, fallDuration, defaultChannel, leftToRight);
+    }
+
+    public PlayerPreferences withBounceHeight(double bounceHeight) {
+        return new PlayerPreferences(enabled, typingSpeed, bounceHeight, fallDuration, defaultChannel, leftToRight);
+    }
+
+    public PlayerPreferences withFallDuration(double fallDuration) {
+        return new PlayerPreferences(enabled, typingSpeed, bounceHeight, fallDuration, defaultChannel, leftToRight);
+    }
+
+    public PlayerPreferences withDefaultChannel(ChatManager.ChatChannel defaultChannel) {
+        return new PlayerPreferences(enabled, typingSpeed, bounceHeight, fallDuration, defaultChannel, leftToRight);
+    }
+
+    public PlayerPreferences withLeftToRight(boolean leftToRight) {
+        return new PlayerPreferences(enabled, typingSpeed, bounceHeight, fallDuration, defaultChannel, leftToRight);
+    }
+}
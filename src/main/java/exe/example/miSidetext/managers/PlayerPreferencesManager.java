@@ -2,101 +2,292 @@ package exe.example.miSidetext.managers;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
 
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
+import exe.example.miSidetext.Config;
 import exe.example.miSidetext.MiSidetext;
 
 public class PlayerPreferencesManager {
 
     private final MiSidetext plugin;
-    private final Map<UUID, YamlConfiguration> playerPreferences = new HashMap<>();
-    private final File preferencesFolder;
+    // 在线玩家的偏好设置快照，登录前异步加载，退出时移除
+    private final Map<UUID, PlayerPreferences> playerPreferences = new ConcurrentHashMap<>();
+    // 已修改但尚未写入文件的偏好设置，玩家退出后仍保留到写入完成
+    private final Map<UUID, PlayerPreferences> dirtyPreferences = new ConcurrentHashMap<>();
+    private final PreferenceStore store;
+    // 文件写入在单独的线程中进行，保证同一玩家的写入按顺序完成
+    private final ExecutorService ioExecutor;
+    private BukkitTask flushTask;
+    // 关闭时等待写入完成的最长时间（毫秒）
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+    // 统计数据
+    private final AtomicLong preloadedCount = new AtomicLong();
+    private final AtomicLong fallbackLoadCount = new AtomicLong(); // 未预加载而在使用时同步加载的次数
+    private final AtomicLong writtenCount = new AtomicLong();
+    private volatile long lastFlushNanos = 0;
 
     public PlayerPreferencesManager(MiSidetext plugin) {
         this.plugin = plugin;
-        this.preferencesFolder = new File(plugin.getDataFolder(), "preferences");
-        if (!preferencesFolder.exists()) {
-            preferencesFolder.mkdirs();
+        this.store = openStore();
+
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MiSidetext-Preferences");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // 插件重载时已在线的玩家没有经过登录事件，直接加载
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            preload(player.getUniqueId());
         }
+
+        // 启动定期写入任务
+        startFlushTask();
     }
 
     /**
-     * 获取玩家的偏好设置
+     * 按配置打开存储后端，单文件存储无法打开时退回YAML文件
      */
-    public YamlConfiguration getPlayerPreferences(Player player) {
-        if (player == null) {
-            plugin.getLogger().warning("尝试获取空玩家的偏好设置");
-            return new YamlConfiguration(); // 返回空配置以避免空指针
-        }
-        
-        UUID playerId = player.getUniqueId();
-        
-        if (!playerPreferences.containsKey(playerId)) {
-            loadPlayerPreferences(player);
+    private PreferenceStore openStore() {
+        File yamlFolder = new File(plugin.getDataFolder(), "preferences");
+        String storage = plugin.getConfig().getString("performance.preferences.storage", "BINARY").toUpperCase(Locale.ROOT);
+        if (!"YAML".equals(storage)) {
+            try {
+                File dataFile = new File(plugin.getDataFolder(), "preferences.dat");
+                // 打开前记录修改时间，打开时可能创建或截断文件
+                long storeModified = dataFile.lastModified();
+                BinaryPreferenceStore binary = new BinaryPreferenceStore(dataFile);
+                migrateYamlPreferences(yamlFolder, binary, storeModified);
+                return binary;
+            } catch (IOException e) {
+                plugin.getLogger().warning(String.format("无法打开偏好设置文件，改用YAML存储: %s", e.getMessage()));
+            }
         }
-        
-        return playerPreferences.get(playerId);
+        return new YamlPreferenceStore(yamlFolder);
     }
 
     /**
-     * 加载玩家偏好设置
+     * 把旧的每个玩家一个YAML文件的偏好设置导入单文件存储，完成后把文件夹重命名为不重复的备份名。
+     * 单文件存储中已有的玩家只在YAML文件更新（例如期间切换回YAML存储后又切换回来）时覆盖
+     * @param storeModified 打开前单文件存储的修改时间，文件不存在时为0
      */
-    private void loadPlayerPreferences(Player player) {
-        if (player == null) {
-            plugin.getLogger().warning("尝试加载空玩家的偏好设置");
+    private void migrateYamlPreferences(File yamlFolder, BinaryPreferenceStore binary, long storeModified) throws IOException {
+        File[] files = yamlFolder.listFiles((dir, name) -> name.endsWith(".yml"));
+        if (files == null || files.length == 0) {
             return;
         }
-        
-        UUID playerId = player.getUniqueId();
-        File playerFile = new File(preferencesFolder, playerId + ".yml");
-        
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(playerFile);
-        
-        // 设置默认值
-        if (!config.contains("enabled")) {
-            config.set("enabled", true);
+
+        long start = System.nanoTime();
+        PlayerPreferences defaults = defaultPreferences();
+        int migrated = 0;
+        for (File file : files) {
+            UUID playerId;
+            try {
+                playerId = UUID.fromString(file.getName().substring(0, file.getName().length() - ".yml".length()));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            // 单文件存储中已有的记录比YAML文件新时保留（例如上次迁移中断）
+            if (binary.contains(playerId) && file.lastModified() <= storeModified) {
+                continue;
+            }
+            binary.save(playerId, YamlPreferenceStore.read(file, defaults));
+            migrated++;
         }
-        if (!config.contains("typing-speed")) {
-            config.set("typing-speed", plugin.getConfig().getLong("side-text.typing-speed"));
+        binary.commit();
+
+        // 之前迁移留下的备份文件夹不覆盖，依次使用 preferences.migrated、preferences.migrated.1 ...
+        File backup = new File(plugin.getDataFolder(), "preferences.migrated");
+        for (int suffix = 1; backup.exists(); suffix++) {
+            backup = new File(plugin.getDataFolder(), "preferences.migrated." + suffix);
         }
-        if (!config.contains("bounce-height")) {
-            config.set("bounce-height", plugin.getConfig().getDouble("side-text.bounce-height"));
+        if (!yamlFolder.renameTo(backup)) {
+            plugin.getLogger().warning("无法重命名旧的偏好设置文件夹，下次启动时只会导入比 preferences.dat 更新的文件");
         }
-        if (!config.contains("fall-duration")) {
-            config.set("fall-duration", plugin.getConfig().getDouble("side-text.fall-duration"));
+        plugin.getLogger().info(String.format("已将 %d 名玩家的偏好设置导入 preferences.dat (%.1fms)",
+            migrated, (System.nanoTime() - start) / 1_000_000.0));
+    }
+
+    /**
+     * 启动定期写入任务，把积累的修改交给写入线程批量保存
+     */
+    private void startFlushTask() {
+        long interval = Math.max(1, plugin.getConfig().getLong("performance.preferences.flush-interval", 5)) * 20;
+        flushTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                if (!dirtyPreferences.isEmpty()) {
+                    ioExecutor.execute(PlayerPreferencesManager.this::flushDirty);
+                }
+            }
+        }.runTaskTimer(plugin, interval, interval);
+    }
+
+    /**
+     * 预加载玩家偏好设置（登录前的异步线程）
+     */
+    public void preload(UUID playerId) {
+        // 快速重新登录时，尚未写入文件的修改比文件中的更新
+        PlayerPreferences pending = dirtyPreferences.get(playerId);
+        playerPreferences.put(playerId, pending != null ? pending : load(playerId));
+        preloadedCount.incrementAndGet();
+    }
+
+    /**
+     * 玩家退出时移除其偏好设置，尚未保存的修改立即交给写入线程
+     */
+    public void evict(UUID playerId) {
+        playerPreferences.remove(playerId);
+        if (dirtyPreferences.containsKey(playerId) && !ioExecutor.isShutdown()) {
+            ioExecutor.execute(() -> {
+                flush(playerId);
+                commit();
+            });
         }
-        // 设置默认聊天频道
-        if (!config.contains("default-channel")) {
-            config.set("default-channel", "NORMAL");
+    }
+
+    /**
+     * 获取玩家的偏好设置快照（任意线程）
+     */
+    public PlayerPreferences getPreferences(Player player) {
+        UUID playerId = player.getUniqueId();
+        PlayerPreferences preferences = playerPreferences.get(playerId);
+        if (preferences == null) {
+            // 兜底：未经过登录事件的玩家在首次使用时同步加载
+            preferences = playerPreferences.computeIfAbsent(playerId, this::load);
+            fallbackLoadCount.incrementAndGet();
         }
-        // 设置默认阅读方向（从左到右）
-        if (!config.contains("reading-direction")) {
-            config.set("reading-direction", "LEFT_TO_RIGHT");
+        return preferences;
+    }
+
+    /**
+     * 获取已缓存的偏好设置，未缓存（例如玩家已退出）时返回null，不会从存储加载
+     */
+    public PlayerPreferences getCachedPreferences(UUID playerId) {
+        return playerPreferences.get(playerId);
+    }
+
+    /**
+     * 从存储读取玩家偏好设置，缺少的项使用配置文件中的默认值
+     */
+    private PlayerPreferences load(UUID playerId) {
+        PlayerPreferences defaults = defaultPreferences();
+        try {
+            return store.load(playerId, defaults);
+        } catch (IOException e) {
+            plugin.getLogger().warning(String.format("无法读取玩家 %s 的偏好设置: %s", playerId, e.getMessage()));
+            return defaults;
         }
-        
-        playerPreferences.put(playerId, config);
     }
 
     /**
-     * 保存玩家偏好设置
+     * 配置文件中的默认偏好设置
+     */
+    private PlayerPreferences defaultPreferences() {
+        Config.SideText sideText = plugin.getSettings().sideText();
+        return new PlayerPreferences(
+            true,
+            sideText.typingSpeed(),
+            sideText.bounceHeight(),
+            sideText.fallDuration(),
+            ChatManager.ChatChannel.NORMAL,
+            true,
+            true);
+    }
+
+    /**
+     * 配置重载后，把仍完全使用默认值的在线玩家改为新的默认值，保存过设置的玩家不变
+     * @return 调整的玩家数
+     */
+    public int rebaseDefaults() {
+        PlayerPreferences defaults = defaultPreferences();
+        int[] rebased = {0};
+        playerPreferences.replaceAll((playerId, preferences) -> {
+            if (!preferences.usesDefaults() || preferences.equals(defaults)) {
+                return preferences;
+            }
+            rebased[0]++;
+            return defaults;
+        });
+        return rebased[0];
+    }
+
+    /**
+     * 修改玩家偏好设置并标记为待保存，由写入线程批量写入文件
+     */
+    private PlayerPreferences update(Player player, UnaryOperator<PlayerPreferences> change) {
+        PlayerPreferences updated = change.apply(getPreferences(player));
+        playerPreferences.put(player.getUniqueId(), updated);
+        dirtyPreferences.put(player.getUniqueId(), updated);
+        return updated;
+    }
+
+    /**
+     * 立即保存玩家偏好设置（在写入线程中进行）
      */
     public void savePlayerPreferences(Player player) {
         UUID playerId = player.getUniqueId();
-        
-        if (playerPreferences.containsKey(playerId)) {
-            File playerFile = new File(preferencesFolder, playerId + ".yml");
-            
-            try {
-                playerPreferences.get(playerId).save(playerFile);
-            } catch (IOException e) {
-                plugin.getLogger().warning(String.format("无法保存玩家 %s 的偏好设置！", player.getName()));
-                e.printStackTrace();
-            }
+        if (dirtyPreferences.containsKey(playerId) && !ioExecutor.isShutdown()) {
+            ioExecutor.execute(() -> {
+                flush(playerId);
+                commit();
+            });
+        }
+    }
+
+    /**
+     * 写入所有待保存的偏好设置（写入线程）
+     */
+    private void flushDirty() {
+        long start = System.nanoTime();
+        for (UUID playerId : dirtyPreferences.keySet()) {
+            flush(playerId);
+        }
+        commit();
+        lastFlushNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * 写入单个玩家的待保存偏好设置（写入线程）
+     */
+    private void flush(UUID playerId) {
+        PlayerPreferences preferences = dirtyPreferences.get(playerId);
+        if (preferences == null) {
+            return;
+        }
+        try {
+            store.save(playerId, preferences);
+            writtenCount.incrementAndGet();
+            // 写入完成后才移除，期间重新登录的玩家仍能读到未写入的修改；期间又有新修改时保留新修改
+            dirtyPreferences.remove(playerId, preferences);
+        } catch (IOException e) {
+            // 写入失败时保留修改，下次再试
+            plugin.getLogger().warning(String.format("无法保存玩家 %s 的偏好设置: %s", playerId, e.getMessage()));
+        }
+    }
+
+    /**
+     * 提交一批写入（写入线程）
+     */
+    private void commit() {
+        try {
+            store.commit();
+        } catch (IOException e) {
+            plugin.getLogger().warning(String.format("提交偏好设置失败: %s", e.getMessage()));
         }
     }
 
@@ -104,11 +295,7 @@ public class PlayerPreferencesManager {
      * 切换玩家的侧边文本启用状态
      */
     public boolean togglePlayerEnabled(Player player) {
-        YamlConfiguration config = getPlayerPreferences(player);
-        boolean enabled = !config.getBoolean("enabled");
-        config.set("enabled", enabled);
-        savePlayerPreferences(player);
-        return enabled;
+        return update(player, preferences -> preferences.withEnabled(!preferences.enabled())).enabled();
     }
 
     /**
@@ -119,112 +306,149 @@ public class PlayerPreferencesManager {
             return false;
         }
         // 如果全局禁用，直接返回false
-        if (!plugin.getConfig().getBoolean("side-text.enabled", true)) {
+        if (!plugin.getSettings().sideText().enabled()) {
             return false;
         }
-        return getPlayerPreferences(player).getBoolean("enabled", true);
+        return getPreferences(player).enabled();
     }
 
     /**
      * 设置玩家的打字速度
      */
     public void setTypingSpeed(Player player, long speed) {
-        YamlConfiguration config = getPlayerPreferences(player);
-        config.set("typing-speed", speed);
-        savePlayerPreferences(player);
+        update(player, preferences -> preferences.withTypingSpeed(speed));
     }
 
     /**
      * 设置玩家的跳动高度
      */
     public void setBounceHeight(Player player, double height) {
-        YamlConfiguration config = getPlayerPreferences(player);
-        config.set("bounce-height", height);
-        savePlayerPreferences(player);
+        update(player, preferences -> preferences.withBounceHeight(height));
     }
 
     /**
      * 设置玩家的掉落持续时间
      */
     public void setFallDuration(Player player, double duration) {
-        YamlConfiguration config = getPlayerPreferences(player);
-        config.set("fall-duration", duration);
-        savePlayerPreferences(player);
+        update(player, preferences -> preferences.withFallDuration(duration));
     }
 
     /**
      * 获取玩家的打字速度
      */
     public long getTypingSpeed(Player player) {
-        return getPlayerPreferences(player).getLong("typing-speed");
+        return getPreferences(player).typingSpeed();
     }
 
     /**
      * 获取玩家的跳动高度
      */
     public double getBounceHeight(Player player) {
-        return getPlayerPreferences(player).getDouble("bounce-height");
+        return getPreferences(player).bounceHeight();
     }
 
     /**
      * 获取玩家的掉落持续时间
      */
     public double getFallDuration(Player player) {
-        return getPlayerPreferences(player).getDouble("fall-duration");
+        return getPreferences(player).fallDuration();
     }
-    
+
     /**
      * 获取玩家的默认聊天频道
      */
     public ChatManager.ChatChannel getDefaultChatChannel(Player player) {
-        try {
-            String channelName = getPlayerPreferences(player).getString("default-channel", "NORMAL");
-            return ChatManager.ChatChannel.valueOf(channelName);
-        } catch (IllegalArgumentException e) {
-            // 如果通道名称无效，返回默认通道
-            return ChatManager.ChatChannel.NORMAL;
-        }
+        return getPreferences(player).defaultChannel();
     }
-    
+
     /**
      * 设置玩家的默认聊天频道
      */
     public void setDefaultChatChannel(Player player, ChatManager.ChatChannel channel) {
-        YamlConfiguration config = getPlayerPreferences(player);
-        config.set("default-channel", channel.name());
-        savePlayerPreferences(player);
+        update(player, preferences -> preferences.withDefaultChannel(channel));
     }
 
     /**
      * 获取玩家的阅读方向
      */
     public boolean isLeftToRight(Player player) {
-        String direction = getPlayerPreferences(player).getString("reading-direction", "LEFT_TO_RIGHT");
-        return "LEFT_TO_RIGHT".equals(direction);
+        return getPreferences(player).leftToRight();
     }
 
     /**
      * 设置玩家的阅读方向
      */
     public void setReadingDirection(Player player, boolean leftToRight) {
-        YamlConfiguration config = getPlayerPreferences(player);
-        config.set("reading-direction", leftToRight ? "LEFT_TO_RIGHT" : "RIGHT_TO_LEFT");
-        savePlayerPreferences(player);
+        update(player, preferences -> preferences.withLeftToRight(leftToRight));
     }
 
     /**
      * 切换玩家的阅读方向
      */
     public boolean toggleReadingDirection(Player player) {
-        boolean current = isLeftToRight(player);
-        setReadingDirection(player, !current);
-        return !current; // 返回新的方向
+        // 返回新的方向
+        return update(player, preferences -> preferences.withLeftToRight(!preferences.leftToRight())).leftToRight();
+    }
+
+    /**
+     * 获取缓存中的玩家数
+     */
+    public int getCachedCount() {
+        return playerPreferences.size();
+    }
+
+    public long getPreloadedCount() {
+        return preloadedCount.get();
+    }
+
+    public long getFallbackLoadCount() {
+        return fallbackLoadCount.get();
+    }
+
+    /**
+     * 获取存储后端
+     */
+    public PreferenceStore getStore() {
+        return store;
+    }
+
+    /**
+     * 获取待保存的玩家数
+     */
+    public int getDirtyCount() {
+        return dirtyPreferences.size();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * 获取最近一次批量写入的耗时（纳秒）
+     */
+    public long getLastFlushNanos() {
+        return lastFlushNanos;
     }
 
     /**
      * 清理所有缓存的玩家偏好设置
      */
     public void cleanup() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        // 写入所有尚未保存的修改
+        ioExecutor.execute(this::flushDirty);
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("偏好设置写入线程未能在限时内结束，剩余 " + dirtyPreferences.size() + " 名玩家未保存");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        store.close();
         playerPreferences.clear();
     }
-}
\ No newline at end of file
+}
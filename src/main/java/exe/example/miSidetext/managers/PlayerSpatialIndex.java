@@ -0,0 +1,225 @@
+package exe.example.miSidetext.managers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 玩家空间索引 - 在主线程定期把所有在线玩家的位置写入按世界划分的网格，生成不可变快照。
+ * 频道半径查询只读取快照，可以在异步聊天线程中安全调用，开销只与附近的玩家数有关
+ */
+public class PlayerSpatialIndex {
+
+    private final MiSidetext plugin;
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), Collections.emptyMap(), 16);
+    private BukkitTask refreshTask;
+    // 复用的位置对象，避免刷新时为每个玩家创建新对象
+    private final Location scratch = new Location(null, 0, 0, 0);
+
+    // 配置参数
+    private int cellSize; // 网格边长（方块）
+    private int refreshTicks; // 刷新间隔（tick）
+
+    // 统计数据
+    private long lastRefreshNanos = 0;
+
+    public PlayerSpatialIndex(MiSidetext plugin) {
+        this.plugin = plugin;
+        loadConfig();
+        refresh();
+
+        // 启动刷新任务
+        startRefreshTask();
+    }
+
+    /**
+     * 加载配置
+     */
+    public void loadConfig() {
+        // 网格边长随快照保存，下次刷新时生效
+        this.cellSize = Math.max(4, plugin.getConfig().getInt("performance.spatial-index.cell-size", 32));
+        int ticks = Math.max(1, plugin.getConfig().getInt("performance.spatial-index.refresh-ticks", 1));
+        boolean changed = ticks != refreshTicks;
+        this.refreshTicks = ticks;
+        // 重载时刷新间隔变化，重新调度刷新任务
+        if (changed && refreshTask != null) {
+            refreshTask.cancel();
+            startRefreshTask();
+        }
+    }
+
+    /**
+     * 启动刷新任务
+     */
+    private void startRefreshTask() {
+        refreshTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }.runTaskTimer(plugin, refreshTicks, refreshTicks);
+    }
+
+    /**
+     * 重建快照（主线程）
+     */
+    public void refresh() {
+        long start = System.nanoTime();
+        int size = cellSize;
+        Map<UUID, Map<Long, List<Entry>>> worlds = new HashMap<>();
+        Map<UUID, Entry> players = new HashMap<>();
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            player.getLocation(scratch);
+            World world = scratch.getWorld();
+            if (world == null) {
+                continue;
+            }
+            Entry entry = new Entry(player, world.getUID(), scratch.getX(), scratch.getY(), scratch.getZ());
+            players.put(player.getUniqueId(), entry);
+            long key = cellKey(Math.floorDiv((int) Math.floor(entry.x), size), Math.floorDiv((int) Math.floor(entry.z), size));
+            worlds.computeIfAbsent(entry.worldId, id -> new HashMap<>())
+                .computeIfAbsent(key, k -> new ArrayList<>(4))
+                .add(entry);
+        }
+
+        snapshot = new Snapshot(worlds, players, size);
+        lastRefreshNanos = System.nanoTime() - start;
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 获取当前快照（任意线程）
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 查询玩家附近（同一世界、半径以内，包括该玩家自己）的玩家（任意线程）
+     * @return 玩家不在快照中时返回空列表
+     */
+    public List<Player> nearby(UUID playerId, double radius) {
+        Snapshot current = snapshot;
+        Entry center = current.players.get(playerId);
+        if (center == null) {
+            return Collections.emptyList();
+        }
+        return current.nearby(center.worldId, center.x, center.y, center.z, radius);
+    }
+
+    /**
+     * 获取最近一次重建快照的耗时（纳秒）
+     */
+    public long getLastRefreshNanos() {
+        return lastRefreshNanos;
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
+        snapshot = new Snapshot(Collections.emptyMap(), Collections.emptyMap(), cellSize);
+    }
+
+    /**
+     * 快照中单个玩家的位置
+     */
+    public record Entry(Player player, UUID worldId, double x, double y, double z) {
+    }
+
+    /**
+     * 不可变的玩家位置快照
+     */
+    public static class Snapshot {
+        private final Map<UUID, Map<Long, List<Entry>>> worlds;
+        private final Map<UUID, Entry> players;
+        private final int cellSize;
+
+        Snapshot(Map<UUID, Map<Long, List<Entry>>> worlds, Map<UUID, Entry> players, int cellSize) {
+            this.worlds = worlds;
+            this.players = players;
+            this.cellSize = cellSize;
+        }
+
+        /**
+         * 获取玩家在快照中的位置，不在快照中时返回null
+         */
+        public Entry get(UUID playerId) {
+            return players.get(playerId);
+        }
+
+        /**
+         * 查询指定位置半径以内的玩家
+         */
+        public List<Player> nearby(UUID worldId, double x, double y, double z, double radius) {
+            Map<Long, List<Entry>> cells = worlds.get(worldId);
+            if (cells == null) {
+                return Collections.emptyList();
+            }
+
+            List<Player> result = new ArrayList<>();
+            double radiusSquared = radius * radius;
+            int minCellX = Math.floorDiv((int) Math.floor(x - radius), cellSize);
+            int maxCellX = Math.floorDiv((int) Math.floor(x + radius), cellSize);
+            int minCellZ = Math.floorDiv((int) Math.floor(z - radius), cellSize);
+            int maxCellZ = Math.floorDiv((int) Math.floor(z + radius), cellSize);
+
+            // 半径覆盖的网格数多于已占用的网格数时，直接遍历已占用的网格
+            long coveredCells = (long) (maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1);
+            if (coveredCells > cells.size()) {
+                for (List<Entry> cell : cells.values()) {
+                    collect(cell, x, y, z, radiusSquared, result);
+                }
+                return result;
+            }
+
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                    List<Entry> cell = cells.get(cellKey(cellX, cellZ));
+                    if (cell != null) {
+                        collect(cell, x, y, z, radiusSquared, result);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static void collect(List<Entry> cell, double x, double y, double z, double radiusSquared, List<Player> result) {
+            for (Entry entry : cell) {
+                double dx = entry.x - x;
+                double dy = entry.y - y;
+                double dz = entry.z - z;
+                if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+                    result.add(entry.player);
+                }
+            }
+        }
+
+        /**
+         * 快照中的玩家数
+         */
+        public int size() {
+            return players.size();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package exe.example.miSidetext.managers;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * 玩家偏好设置的存储后端 - 读取可能在登录前的异步线程中并发进行，
+ * 写入只由偏好设置的写入线程调用
+ */
+public interface PreferenceStore {
+
+    /**
+     * 读取玩家偏好设置，没有保存过或缺少的项使用给定的默认值
+     */
+    PlayerPreferences load(UUID playerId, PlayerPreferences defaults) throws IOException;
+
+    /**
+     * 保存玩家偏好设置
+     */
+    void save(UUID playerId, PlayerPreferences preferences) throws IOException;
+
+    /**
+     * 一批写入完成后调用，可以在此刷新到磁盘或整理存储
+     */
+    default void commit() throws IOException {
+    }
+
+    /**
+     * 后端名称，用于日志和性能统计
+     */
+    String getName();
+
+    /**
+     * 关闭存储，释放文件句柄
+     */
+    void close();
+}
@@ -0,0 +1,194 @@
+package exe.example.miSidetext.managers;
+
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 效果质量调节器 - 根据MSPT和TPS逐级降低侧边文本效果的质量，服务器卡顿时优先减少插件自身的负载。
+ * 降级很快，但每次降级后要等MSPT的平均窗口过去、看到这一级的效果后才会再降，恢复需要连续一段时间低于恢复阈值，避免在两个等级之间来回切换
+ */
+public class QualityGovernor {
+
+    /**
+     * 效果质量等级，从高到低
+     */
+    public enum QualityTier {
+        FULL("完整效果"),
+        NO_BOUNCE("无跳动"),
+        NO_PHYSICS("无物理坠落"),
+        NO_EFFECTS("无粒子和声音"),
+        CHAT_ONLY("仅聊天");
+
+        private final String displayName;
+
+        QualityTier(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public boolean allowsSideText() {
+            return this != CHAT_ONLY;
+        }
+
+        public boolean allowsBounce() {
+            return this == FULL;
+        }
+
+        public boolean allowsPhysics() {
+            return ordinal() < NO_PHYSICS.ordinal();
+        }
+
+        public boolean allowsParticlesAndSound() {
+            return ordinal() < NO_EFFECTS.ordinal();
+        }
+    }
+
+    // 服务器平均tick时间的统计窗口（秒）
+    private static final int MSPT_WINDOW_SECONDS = 5;
+
+    private final MiSidetext plugin;
+    private BukkitTask evaluateTask;
+    private volatile QualityTier tier = QualityTier.FULL;
+    private int calmSeconds = 0; // 连续低于恢复阈值的秒数
+    private int cooldownSeconds = 0; // 距离允许再次降级还剩的秒数
+    private double lastMspt = 0;
+
+    // 配置参数
+    private boolean enabled;
+    private double msptBudget; // 每tick的时间预算（毫秒）
+    private double degradeRatio; // MSPT超过预算的该比例时降级
+    private int degradeCooldown; // 两次降级之间的最短间隔（秒）
+    private double recoverRatio; // MSPT低于预算的该比例时开始计时恢复
+    private int recoverSeconds; // 连续多少秒低于恢复阈值后升级
+    private double tpsWarningThreshold; // TPS低于该值时降级
+
+    public QualityGovernor(MiSidetext plugin) {
+        this.plugin = plugin;
+        loadConfig();
+
+        // 启动评估任务
+        startEvaluateTask();
+    }
+
+    /**
+     * 加载配置
+     */
+    public void loadConfig() {
+        this.enabled = plugin.getConfig().getBoolean("performance.governor.enabled", true);
+        this.msptBudget = plugin.getConfig().getDouble("performance.governor.mspt-budget", 50.0);
+        this.degradeRatio = plugin.getConfig().getDouble("performance.governor.degrade-ratio", 0.8);
+        // MSPT取自服务器最近100tick（5秒）的平均值，冷却时间不能短于该窗口
+        this.degradeCooldown = Math.max(MSPT_WINDOW_SECONDS, plugin.getConfig().getInt("performance.governor.degrade-cooldown", MSPT_WINDOW_SECONDS));
+        this.recoverRatio = plugin.getConfig().getDouble("performance.governor.recover-ratio", 0.6);
+        this.recoverSeconds = Math.max(1, plugin.getConfig().getInt("performance.governor.recover-seconds", 10));
+        this.tpsWarningThreshold = plugin.getConfig().getDouble("performance.tps-warning-threshold", 18.0);
+        if (!enabled) {
+            setTier(QualityTier.FULL);
+        }
+    }
+
+    /**
+     * 启动评估任务，每秒评估一次服务器负载
+     */
+    private void startEvaluateTask() {
+        evaluateTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                evaluate();
+            }
+        }.runTaskTimer(plugin, 20L, 20L);
+    }
+
+    /**
+     * 根据当前MSPT和TPS调整质量等级
+     */
+    private void evaluate() {
+        PerformanceTestManager performanceTestManager = plugin.getPerformanceTestManager();
+        if (!enabled || performanceTestManager == null) {
+            return;
+        }
+
+        double mspt = performanceTestManager.getMSPT();
+        double tps = performanceTestManager.getTPS();
+        lastMspt = mspt;
+        if (cooldownSeconds > 0) {
+            cooldownSeconds--;
+        }
+
+        if (mspt > msptBudget * degradeRatio || tps < tpsWarningThreshold) {
+            // 负载过高：降一级，冷却期内等待上一次降级的效果反映到平均值中
+            calmSeconds = 0;
+            if (tier != QualityTier.CHAT_ONLY && cooldownSeconds == 0) {
+                setTier(QualityTier.values()[tier.ordinal() + 1]);
+                cooldownSeconds = degradeCooldown;
+            }
+        } else if (mspt < msptBudget * recoverRatio) {
+            // 负载较低：持续一段时间后升一级
+            calmSeconds++;
+            if (calmSeconds >= recoverSeconds && tier != QualityTier.FULL) {
+                setTier(QualityTier.values()[tier.ordinal() - 1]);
+                calmSeconds = 0;
+            }
+        } else {
+            // 处于两个阈值之间：保持当前等级
+            calmSeconds = 0;
+        }
+    }
+
+    /**
+     * 切换质量等级
+     */
+    private void setTier(QualityTier newTier) {
+        QualityTier oldTier = tier;
+        if (oldTier == newTier) {
+            return;
+        }
+        tier = newTier;
+
+        // 进入无跳动等级时，停止正在进行的跳动动画
+        if (!newTier.allowsBounce() && oldTier.allowsBounce() && plugin.getAnimationManager() != null) {
+            plugin.getAnimationManager().stopAllBounce();
+        }
+
+        // 进入仅聊天等级时暂停进行中的消息，离开时继续打字
+        if (newTier.allowsSideText() != oldTier.allowsSideText() && plugin.getSideTextManager() != null) {
+            plugin.getSideTextManager().setTimelinesPaused(!newTier.allowsSideText());
+        }
+
+        plugin.getLogger().info(String.format("侧边文本效果质量: %s -> %s (MSPT: %.2f)",
+            oldTier.getDisplayName(), newTier.getDisplayName(), lastMspt));
+    }
+
+    /**
+     * 获取当前质量等级
+     */
+    public QualityTier getTier() {
+        return tier;
+    }
+
+    /**
+     * 获取最近一次评估时的MSPT
+     */
+    public double getLastMspt() {
+        return lastMspt;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        if (evaluateTask != null) {
+            evaluateTask.cancel();
+            evaluateTask = null;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package exe.example.miSidetext.managers;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -8,25 +9,112 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.Bukkit;
-import org.bukkit.Color;
 import org.bukkit.Location;
-import org.bukkit.entity.Display;
-import org.bukkit.entity.EntityType;
 import org.bukkit.entity.TextDisplay;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
-import org.bukkit.util.Transformation;
 
+import exe.example.miSidetext.Config;
 import exe.example.miSidetext.MiSidetext;
 
 public class SideTextManager {
 
+    // 被缩短的消息的渐隐时长（tick）
+    private static final int SHORTENED_FADE_TICKS = 10;
+    // 不使用物理坠落时的渐隐时长（tick）
+    private static final int PLAIN_FADE_TICKS = 40;
+    // 着地后的最长渐隐时长（tick）
+    private static final int LANDED_FADE_TICKS = 80;
+
     private final MiSidetext plugin;
-    private final Map<UUID, List<BukkitTask>> activeTasks = new ConcurrentHashMap<>();
-    private final Map<UUID, List<TextDisplay>> activeDisplays = new ConcurrentHashMap<>();
+    private final AnimationManager animationManager;
+    private final QualityGovernor qualityGovernor;
+    private final Map<UUID, List<MessageTimeline>> activeTimelines = new ConcurrentHashMap<>();
+    // 正在显示的消息的观看者集合
+    private final List<MessageAudience> activeAudiences = new ArrayList<>();
+    // 所有在用实体的登记表，实体归还对象池时注销
+    private final GlyphRegistry glyphRegistry = new GlyphRegistry();
+    private final OrphanSweeper orphanSweeper;
+    private final TextDisplayPool displayPool;
+    private final GlyphBudget glyphBudget;
+    // 着地后渐隐、坠落后归还等长延迟回调
+    private final TimingWheel timingWheel;
+    private BukkitTask sweeperTask;
+    private long sweeperInterval; // 清理间隔（tick）
 
     public SideTextManager(MiSidetext plugin) {
         this.plugin = plugin;
+        this.animationManager = plugin.getAnimationManager();
+        this.qualityGovernor = plugin.getQualityGovernor();
+        this.orphanSweeper = new OrphanSweeper(plugin);
+        this.displayPool = new TextDisplayPool(plugin, orphanSweeper);
+        this.glyphBudget = new GlyphBudget(plugin);
+        this.timingWheel = new TimingWheel(plugin);
+        // 动画出错的实体走正常的归还流程
+        animationManager.setReleaseHandler(this::releaseDisplay);
+        
+        // 启动观看者刷新任务
+        startAudienceRefreshTask();
+        
+        // 启动清理任务
+        startSweeperTask();
+    }
+    
+    /**
+     * 启动清理任务，按配置的清理间隔清扫失效或存活过久的实体，并移除已结束的时间线
+     */
+    private void startSweeperTask() {
+        long interval = Math.max(20L, (long) (plugin.getConfig().getDouble("performance.cleanup-interval", 10.0) * 20));
+        sweeperInterval = interval;
+        sweeperTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                long maxAge = (long) (plugin.getConfig().getDouble("performance.registry.max-glyph-age", 120.0) * 1000);
+                glyphRegistry.sweep(maxAge, SideTextManager.this::releaseHandle);
+                
+                activeTimelines.values().forEach(timelines -> timelines.removeIf(MessageTimeline::isFinished));
+                activeTimelines.values().removeIf(List::isEmpty);
+            }
+        }.runTaskTimer(plugin, interval, interval);
+    }
+    
+    /**
+     * 重新加载预算、对象池和清理设置，已显示的实体不受影响，新的限制从下一条消息开始生效
+     */
+    public void loadConfig() {
+        glyphBudget.loadConfig();
+        displayPool.loadConfig();
+        orphanSweeper.loadConfig();
+        
+        // 清理间隔变化时重新调度清理任务
+        long interval = Math.max(20L, (long) (plugin.getConfig().getDouble("performance.cleanup-interval", 10.0) * 20));
+        if (interval != sweeperInterval) {
+            if (sweeperTask != null) {
+                sweeperTask.cancel();
+            }
+            startSweeperTask();
+        }
+    }
+    
+    /**
+     * 启动观看者刷新任务，每秒更新一次各消息的可见玩家，并清理对象池中空闲过久的实体
+     */
+    private void startAudienceRefreshTask() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                activeAudiences.removeIf(audience -> {
+                    // 被其他方式移除的实体也要归还预算
+                    glyphBudget.release(audience.getReservation(), audience.refresh());
+                    if (audience.isFinished()) {
+                        glyphBudget.close(audience.getReservation());
+                        return true;
+                    }
+                    return false;
+                });
+                displayPool.trim();
+            }
+        }.runTaskTimer(plugin, 20L, 20L);
     }
 
     /**
@@ -36,7 +124,7 @@ public class SideTextManager {
      */
     public void displaySideText(org.bukkit.entity.Player player, String message) {
         // 默认为1.0倍大小（普通聊天）
-        displaySideTextWithTypewriter(player, message, 1.0);
+        displaySideText(player, message, 1.0);
     }
     
     /**
@@ -46,50 +134,103 @@ public class SideTextManager {
      * @param textScale 文本缩放比例
      */
     public void displaySideText(org.bukkit.entity.Player player, String message, double textScale) {
-        displaySideTextWithTypewriter(player, message, textScale);
+        // 未指定接收者时，对普通频道范围内的玩家可见
+        double radius = ChatManager.ChatChannel.NORMAL.getRadius();
+        List<org.bukkit.entity.Player> recipients = plugin.getPlayerSpatialIndex().nearby(player.getUniqueId(), radius);
+        if (recipients.isEmpty()) {
+            // 刚加入的玩家可能尚未写入快照，至少保证自己能看到
+            recipients = List.of(player);
+        }
+        displaySideTextWithTypewriter(player, message, textScale,
+            new MessageAudience(plugin, player.getEyeLocation(), radius, recipients));
     }
     
-    private void displaySideTextWithTypewriter(org.bukkit.entity.Player player, String message, double textScale) {
+    /**
+     * 显示侧边文本效果（打字机效果版本），实体只对收到消息的玩家可见
+     * @param player 玩家
+     * @param message 消息内容
+     * @param channel 聊天频道
+     * @param recipients 收到消息的玩家
+     */
+    public void displaySideText(org.bukkit.entity.Player player, String message, ChatManager.ChatChannel channel,
+                                Collection<? extends org.bukkit.entity.Player> recipients) {
+        displaySideTextWithTypewriter(player, message, channel.getTextScale(),
+            new MessageAudience(plugin, player.getEyeLocation(), channel.getRadius(), recipients));
+    }
+    
+    private void displaySideTextWithTypewriter(org.bukkit.entity.Player player, String message, double textScale,
+                                               MessageAudience audience) {
+        // 整条消息使用同一份配置快照
+        Config settings = plugin.getSettings();
+        // 渲染模式：token模式每个字符/单词一个实体，line模式每行一个实体
+        boolean lineMode = settings.sideText().lineMode();
+        
+        // 多行处理：将消息分割为多行，并预先拆分token以计算所需实体数
+        List<String> lines = splitMessageIntoLines(message);
+        List<List<String>> lineTokens = new ArrayList<>();
+        int glyphCount = 0;
+        for (String line : lines) {
+            List<String> tokens = splitTextIntoTokens(line);
+            lineTokens.add(tokens);
+            glyphCount += lineMode ? 1 : tokens.size();
+        }
+        
+        // 服务器负载过高时只发送聊天消息
+        QualityGovernor.QualityTier tier = qualityGovernor.getTier();
+        if (!tier.allowsSideText()) {
+            return;
+        }
+        
+        // 在生成实体之前申请预算，预算不足时按策略处理
+        GlyphBudget.Reservation reservation = glyphBudget.tryAdmit(player.getUniqueId(), player.getWorld().getUID(), glyphCount);
+        if (reservation == null) {
+            // 丢弃该消息的侧边文本效果，聊天消息照常发送
+            return;
+        }
+        audience.setReservation(reservation);
+        activeAudiences.add(audience);
+        
+        // 该消息的所有延迟事件都放在同一条时间线上，被移除或缩短时整体取消
+        final MessageTimeline timeline = new MessageTimeline(plugin);
+        reservation.onEvict(() -> evictMessage(audience, timeline));
+        reservation.onShorten(() -> shortenMessage(audience, timeline));
+        
         // 根据配置播放按钮触发声音
-        if (plugin.getConfig().getBoolean("sound-effects.enabled", true)) {
-            String soundType = plugin.getConfig().getString("sound-effects.click-sound", "block.stone_button.click_on");
-            float volume = (float) plugin.getConfig().getDouble("sound-effects.volume", 1.0);
-            float pitch = (float) plugin.getConfig().getDouble("sound-effects.pitch", 1.0);
-            player.playSound(player.getLocation(), soundType, volume, pitch);
+        Config.Sounds sounds = settings.sounds();
+        if (tier.allowsParticlesAndSound() && sounds.enabled()) {
+            player.playSound(player.getLocation(), sounds.clickSound(), sounds.volume(), sounds.pitch());
         }
         
         // 保留玩家之前的文本效果，允许多个字符实体同时存在
-        List<BukkitTask> tasks = new ArrayList<>();
-        List<TextDisplay> displays = new ArrayList<>();
+        List<MessageTimeline> timelines = new ArrayList<>();
         
-        // 如果已有活跃显示，则添加到现有列表中
+        // 保留玩家尚未结束的时间线
         synchronized (this) {
-            if (activeDisplays.containsKey(player.getUniqueId())) {
-                displays.addAll(activeDisplays.get(player.getUniqueId()));
-            }
-            if (activeTasks.containsKey(player.getUniqueId())) {
-                tasks.addAll(activeTasks.get(player.getUniqueId()));
+            if (activeTimelines.containsKey(player.getUniqueId())) {
+                for (MessageTimeline previous : activeTimelines.get(player.getUniqueId())) {
+                    if (!previous.isFinished()) {
+                        timelines.add(previous);
+                    }
+                }
             }
         }
 
-        // 使用玩家的个性化设置
-        long typingSpeed = plugin.getPlayerPreferencesManager().getTypingSpeed(player);
-        double fallDuration = plugin.getPlayerPreferencesManager().getFallDuration(player) * 20; // 转换为tick
-        double bounceHeight = plugin.getPlayerPreferencesManager().getBounceHeight(player);
-        double bouncePeriod = plugin.getConfig().getDouble("side-text.bounce-period") * 20;
+        // 使用玩家的个性化设置；跳动高度和掉落时间在用到时重新读取，重载配置或修改设置后对进行中的消息立即生效
+        final UUID playerId = player.getUniqueId();
+        final PlayerPreferences preferences = plugin.getPlayerPreferencesManager().getPreferences(player);
+        long typingSpeed = preferences.typingSpeed();
 
         // 1. 方向计算：计算垂直于玩家视线的方向向量
         Location eyeLocation = player.getEyeLocation();
         Location baseLocation = calculateBasePosition(eyeLocation);
         
         // 2. 阅读方向：从玩家偏好设置获取
-        boolean leftToRight = plugin.getPlayerPreferencesManager().isLeftToRight(player);
+        boolean leftToRight = preferences.leftToRight();
         
         // 3. 间距控制：根据字体缩放自动调整字符间距
         double charSpacing = calculateCharSpacing(textScale);
         
-        // 4. 多行处理：将消息分割为多行
-        List<String> lines = splitMessageIntoLines(message);
+        // 4. 多行处理：使用上面已分割好的行
         int maxLineWidth = getMaxLineWidth(lines);
         double lineSpacing = 0.6 * textScale; // 行间距
         
@@ -112,9 +253,18 @@ public class SideTextManager {
             lineDisplays.put(lineIndex, new ArrayList<>());
             
             // 使用单词级别的处理，将英文单词和数字作为整体处理
-            List<String> textTokens = splitTextIntoTokens(line);
+            List<String> textTokens = lineTokens.get(lineIndex);
             int tokenIndex = 0;
             
+            // 行模式下整行实体放在该行所有token位置的中点
+            double lineSpan = 0;
+            for (int j = 0; j < textTokens.size() - 1; j++) {
+                String spanToken = textTokens.get(j);
+                lineSpan += spanToken.length() * charSpacing + (isWordOrNumber(spanToken) ? 0.2 * charSpacing : 0);
+            }
+            final double lineCenterOffset = leftToRight ? lineStartOffset + lineSpan / 2 : lineStartOffset - lineSpan / 2;
+            StringBuilder revealedBuilder = new StringBuilder();
+            
             // 逐token（字符或单词）显示效果
             for (String token : textTokens) {
                 final int currentTokenIndex = tokenIndex;
@@ -123,6 +273,8 @@ public class SideTextManager {
                 final double currentStartOffset = lineStartOffset;
                 final int lineNumber = lineIndex;
                 final String currentLine = line;
+                // 行模式下当前已显示的文本
+                final String revealedText = revealedBuilder.append(token).toString();
                 
                 // 计算token显示延迟，包含行延迟
                 long tokenDelay = (long) ((totalDelay + currentTokenIndex) * typingSpeed / 50);
@@ -142,79 +294,60 @@ public class SideTextManager {
                         tempTokenXOffset += nextToken.length() * charSpacing + (isWordOrNumber(nextToken) ? 0.2 * charSpacing : 0);
                     }
                 }
-                // 声明为final用于内部类引用
+                // 声明为final用于时间线事件引用
                 final double tokenXOffset = tempTokenXOffset;
 
-                // 创建token显示任务
-                BukkitTask task = new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        // 计算token位置 - 应用居中偏移
-                        double xOffset = leftToRight ? 
-                            currentStartOffset + tokenXOffset : 
-                            currentStartOffset - tokenXOffset;
-                            
-                        // 如果是新行的第一个token，将前一行相同位置的字符实体标记为准备坠落
-                        if (currentTokenIndex == 0 && lineNumber > 0) {
-                            synchronized (SideTextManager.this) {
-                                // 找到前一行对应位置的字符实体
-                                if (lineDisplays.containsKey(lineNumber - 1)) {
-                                    List<TextDisplay> previousLine = lineDisplays.get(lineNumber - 1);
-                                    for (TextDisplay prevDisplay : previousLine) {
-                                        if (prevDisplay != null && !prevDisplay.isDead()) {
-                                            // 立即应用坠落动画
-                                            applyFallAnimation(prevDisplay, fallDuration);
-                                            // 动画结束后移除实体
-                                            Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                                                if (prevDisplay != null && !prevDisplay.isDead()) {
-                                                    prevDisplay.remove();
-                                                    synchronized (SideTextManager.this) {
-                                                        displays.remove(prevDisplay);
-                                                    }
-                                                }
-                                            }, (long) fallDuration + 20); // 额外等待1秒确保动画完成
-                                        }
-                                    }
-                                }
+                // 在时间线上添加token显示事件
+                timeline.at(tokenDelay, () -> {
+                    // 计算token位置 - 应用居中偏移
+                    double xOffset = leftToRight ? 
+                        currentStartOffset + tokenXOffset : 
+                        currentStartOffset - tokenXOffset;
+                        
+                    // 如果是新行的第一个token，将前一行相同位置的字符实体标记为准备坠落
+                    if (currentTokenIndex == 0 && lineNumber > 0) {
+                        synchronized (SideTextManager.this) {
+                            // 找到前一行对应位置的字符实体
+                            if (lineDisplays.containsKey(lineNumber - 1)) {
+                                List<TextDisplay> previousLine = lineDisplays.get(lineNumber - 1);
+                                dropLine(previousLine, currentPreferences(playerId, preferences).fallDuration() * 20, audience);
                             }
                         }
-                            
-                        Location charLocation = baseLocation.clone()
-                            .add(xOffset, currentYOffset, 0);
-                        
-                        // 创建文本显示实体 - 确保参数正确
-                        TextDisplay textDisplay = createTextDisplay(player.getWorld(), currentToken, charLocation, textScale);
+                    }
+                    
+                    // 行模式：每行只生成一个文本实体，后续token通过增长文本实现打字机效果
+                    if (lineMode) {
+                        revealLineText(player, audience, lineDisplays.get(lineNumber), revealedText,
+                            baseLocation.clone().add(lineCenterOffset, currentYOffset, 0),
+                            textScale, currentPreferences(playerId, preferences));
+                        return;
+                    }
                         
-                        if (textDisplay != null) {
-                            // 添加到活跃列表和行显示映射
-                            synchronized (SideTextManager.this) {
-                                displays.add(textDisplay);
-                                // 添加到当前行的显示列表
-                                if (lineDisplays.containsKey(lineNumber)) {
-                                    lineDisplays.get(lineNumber).add(textDisplay);
-                                }
+                    Location charLocation = baseLocation.clone()
+                        .add(xOffset, currentYOffset, 0);
+                    
+                    // 创建文本显示实体 - 确保参数正确
+                    TextDisplay textDisplay = createTextDisplay(player, currentToken, charLocation, textScale, audience);
+                    
+                    if (textDisplay != null) {
+                        // 添加到行显示映射
+                        synchronized (SideTextManager.this) {
+                            // 添加到当前行的显示列表
+                            if (lineDisplays.containsKey(lineNumber)) {
+                                lineDisplays.get(lineNumber).add(textDisplay);
                             }
+                        }
 
-                            // 应用跳动动画
-                            applyBounceAnimation(textDisplay, bounceHeight, bouncePeriod);
-                            
-                            // 为新字符添加轻微的出现效果，提升视觉体验
-                            // 设置初始低亮度
-                            textDisplay.setBrightness(new Display.Brightness((byte) 0, (byte) 0));
-                            Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                                if (textDisplay != null && !textDisplay.isDead()) {
-                                    // 恢复正常亮度
-                                    textDisplay.setBrightness(new Display.Brightness((byte) 15, (byte) 15));
-                                }
-                            }, 1);
-                        } else {
-                            plugin.getLogger().warning("无法为玩家 " + player.getName() + " 创建文本实体，内容: '" + currentToken + "'");
+                        // 应用跳动动画
+                        if (qualityGovernor.getTier().allowsBounce()) {
+                            applyBounceAnimation(textDisplay, currentPreferences(playerId, preferences));
                         }
+                    } else {
+                        plugin.getLogger().warning("无法为玩家 " + player.getName() + " 创建文本实体，内容: '" + currentToken + "'");
                     }
-                }.runTaskLater(plugin, tokenDelay);
+                });
 
                 tokenIndex++;
-                tasks.add(task);
             }
             
             // 增加行之间的延迟
@@ -226,30 +359,91 @@ public class SideTextManager {
         // 为最后一行的字符设置坠落动画
         final int lastLineIndex = lines.size() - 1;
         long lastLineFallDelay = (long) (totalDelay * typingSpeed / 50);
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+        timeline.at(lastLineFallDelay, () -> {
             List<TextDisplay> lastLineChars = lineDisplays.get(lastLineIndex);
             if (lastLineChars != null) {
-                for (TextDisplay display : lastLineChars) {
-                    if (display != null && !display.isDead()) {
-                        applyFallAnimation(display, fallDuration);
-                        // 动画结束后移除实体
-                        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                            if (display != null && !display.isDead()) {
-                                display.remove();
-                                synchronized (SideTextManager.this) {
-                                    displays.remove(display);
-                                }
-                            }
-                        }, (long) fallDuration + 20); // 额外等待1秒确保动画完成
-                    }
-                }
+                dropLine(lastLineChars, currentPreferences(playerId, preferences).fallDuration() * 20, audience);
             }
-        }, lastLineFallDelay);
+        });
 
-        // 存储活跃任务和显示实体
+        // 存储活跃时间线
+        timelines.add(timeline);
         synchronized (this) {
-            activeTasks.put(player.getUniqueId(), tasks);
-            activeDisplays.put(player.getUniqueId(), displays);
+            activeTimelines.put(player.getUniqueId(), timelines);
+        }
+        
+        // 启动时间线
+        timeline.start();
+    }
+    
+    /**
+     * 行模式下显示当前行已输入的文本：首个token生成整行实体，之后只更新其文本
+     */
+    private void revealLineText(org.bukkit.entity.Player player, MessageAudience audience, List<TextDisplay> currentLineDisplays,
+                                String revealedText, Location lineLocation,
+                                double textScale, PlayerPreferences preferences) {
+        if (currentLineDisplays == null) {
+            return;
+        }
+        
+        // 已有整行实体时只更新文本
+        if (!currentLineDisplays.isEmpty()) {
+            TextDisplay lineDisplay = currentLineDisplays.get(0);
+            if (lineDisplay != null && !lineDisplay.isDead()) {
+                lineDisplay.setText("§f" + revealedText);
+            }
+            return;
+        }
+        
+        TextDisplay lineDisplay = createTextDisplay(player, revealedText, lineLocation, textScale, audience);
+        if (lineDisplay == null) {
+            plugin.getLogger().warning("无法为玩家 " + player.getName() + " 创建文本实体，内容: '" + revealedText + "'");
+            return;
+        }
+        
+        synchronized (this) {
+            currentLineDisplays.add(lineDisplay);
+        }
+        
+        // 应用跳动动画
+        if (qualityGovernor.getTier().allowsBounce()) {
+            applyBounceAnimation(lineDisplay, preferences);
+        }
+    }
+    
+    /**
+     * 获取玩家当前的偏好设置，玩家已退出时使用消息开始时的快照
+     */
+    private PlayerPreferences currentPreferences(UUID playerId, PlayerPreferences snapshot) {
+        PlayerPreferences current = plugin.getPlayerPreferencesManager().getCachedPreferences(playerId);
+        return current != null ? current : snapshot;
+    }
+    
+    /**
+     * 让一行的实体离场：物理坠落后归还，负载过高时改为直接渐隐
+     */
+    private void dropLine(List<TextDisplay> lineChars, double fallDuration, MessageAudience audience) {
+        boolean physics = qualityGovernor.getTier().allowsPhysics();
+        for (TextDisplay display : lineChars) {
+            if (!isLeasedBy(display, audience)) {
+                continue;
+            }
+            if (!physics) {
+                fadeOutText(display, PLAIN_FADE_TICKS);
+                continue;
+            }
+            
+            // 立即应用坠落动画
+            applyFallAnimation(display, fallDuration);
+            // 兜底：到期时归还实体；着地后在该期限内停留再渐隐
+            GlyphRegistry.Handle handle = glyphRegistry.get(display);
+            if (handle != null) {
+                replaceTimer(handle, timingWheel.schedule((long) fallDuration + 20, () -> { // 额外等待1秒确保动画完成
+                    if (isLeasedBy(display, audience)) {
+                        releaseDisplay(display);
+                    }
+                }));
+            }
         }
     }
     
@@ -395,7 +589,9 @@ public class SideTextManager {
     /**
      * 创建文本显示实体
      */
-    private TextDisplay createTextDisplay(org.bukkit.World world, String text, Location location, double textScale) {
+    private TextDisplay createTextDisplay(org.bukkit.entity.Player player, String text, Location location, double textScale,
+                                          MessageAudience audience) {
+        org.bukkit.World world = player.getWorld();
         // 确保位置有效
         if (world == null || location == null) {
             // 静默处理无效参数，不输出日志
@@ -403,388 +599,215 @@ public class SideTextManager {
         }
         
         try {
-            // 生成文本显示实体
-            TextDisplay textDisplay = (TextDisplay) world.spawnEntity(location, EntityType.TEXT_DISPLAY);
+            // 从对象池获取文本实体，新实体在生成时一次性完成样式设置
+            // 调整比例使其更大更醒目，并应用文本缩放
+            float scale = (float) (0.8f * textScale); // 根据缩放比例调整尺寸
+            // 开启淡入效果时以低亮度出现，下一个tick恢复正常亮度
+            boolean fadeIn = plugin.getSettings().sideText().fadeIn();
+            // 使用Minecraft颜色代码设置白色文本
+            TextDisplay textDisplay = displayPool.acquire(world, location, "§f" + text, scale, fadeIn ? 0 : 15); // §f 是白色代码
             
             if (textDisplay == null) {
                 // 静默处理创建失败，不输出日志
+                glyphBudget.release(audience.getReservation(), 1);
                 return null;
             }
             
-            // 设置显示属性 - 紫底白边效果，移除半透明黑色边框
-            // 使用Minecraft颜色代码设置白色文本
-            textDisplay.setText("§f" + text); // §f 是白色代码
-            textDisplay.setBillboard(Display.Billboard.CENTER); // 始终面向玩家
-            textDisplay.setBrightness(new Display.Brightness(15, 15)); // 最大亮度
-            textDisplay.setInterpolationDuration(20); // 平滑过渡
-            
-            // 移除半透明黑色边框
-            textDisplay.setShadowRadius(0.0f); // 禁用阴影半径
-            textDisplay.setShadowStrength(0.0f); // 禁用阴影强度
+            // 只向收到消息的玩家显示
+            audience.addDisplay(textDisplay);
+            glyphRegistry.register(textDisplay, audience, player.getUniqueId());
             
-            // 实现紫底白边效果
-            textDisplay.setSeeThrough(false);
-            textDisplay.setGlowing(true); // 启用发光效果
-            textDisplay.setGlowColorOverride(Color.PURPLE); // 紫色背景效果
-            
-            // 调整比例使其更大更醒目，并应用文本缩放
-            Transformation transformation = textDisplay.getTransformation();
-            // 确保缩放功能正确应用，使单个字符的显示也支持缩放
-            float scale = (float) (0.8f * textScale); // 根据缩放比例调整尺寸
-            transformation.getScale().set(scale, scale, scale);
-            textDisplay.setTransformation(transformation);
+            if (fadeIn) {
+                animationManager.startFadeIn(textDisplay);
+            }
             
             return textDisplay;
         } catch (NullPointerException e) {
             // 仅处理空指针异常
             plugin.getLogger().warning("创建文本实体失败: 空指针异常");
+            glyphBudget.release(audience.getReservation(), 1);
             return null;
         } catch (RuntimeException e) {
             // 处理其他运行时异常
             plugin.getLogger().warning("创建文本实体失败: " + e.getMessage());
+            glyphBudget.release(audience.getReservation(), 1);
             return null;
         }
     }
 
     /**
-     * 应用上下抖动动画 - 只保留Y方向的上下移动效果
+     * 检查实体是否仍属于指定消息（实体归还对象池后可能已被其他消息复用）
      */
-    private void applyBounceAnimation(TextDisplay textDisplay, double bounceHeight, double bouncePeriod) {
-        // 为每个字符生成随机的基础相位偏移（final变量，不修改）
-        final double basePhase = Math.random() * 2 * Math.PI;
-        // 使用数组存储需要在运行时修改的参数
-        final double[] phase1 = {Math.random() * 2 * Math.PI}; // 相位
-        final double[] amplitudeFactor = {0.5 + Math.random() * 0.5}; // 振幅因子
-        final double[] freqFactorY = {1.2 + Math.random() * 0.6}; // Y方向频率因子
-        
-        // 平滑因子，使变化更自然
-        final double smoothFactor = 0.05;
-        
-        // 存储上一帧的Y位置，用于平滑过渡
-        final double[] lastPosY = {0};
-        
-        new BukkitRunnable() {
-            private int tick = 0;
-            private double time = 0;
+    private boolean isLeasedBy(TextDisplay textDisplay, MessageAudience audience) {
+        if (textDisplay == null || textDisplay.isDead()) {
+            return false;
+        }
+        GlyphRegistry.Handle handle = glyphRegistry.get(textDisplay);
+        return handle != null && handle.getMessage() == audience;
+    }
 
-            @Override
-            public void run() {
-                if (textDisplay.isDead()) {
-                    this.cancel();
-                    return;
-                }
+    /**
+     * 结束实体的显示：停止动画、对观看者隐藏并归还对象池
+     */
+    private void releaseDisplay(TextDisplay textDisplay) {
+        GlyphRegistry.Handle handle = glyphRegistry.get(textDisplay);
+        if (handle != null) {
+            releaseHandle(handle);
+            return;
+        }
+        animationManager.stop(textDisplay);
+        displayPool.release(textDisplay);
+    }
 
-                // 更新时间
-                time += 0.1; // 调整时间步长以控制整体抖动速度
-                
-                // 使用多频率正弦波叠加生成更自然的上下抖动效果
-                // 主要频率
-                double mainFreq = 1.0 / (bouncePeriod * 0.1);
-                
-                // Y方向抖动 (上下移动)
-                double yJitter = (Math.sin(time * mainFreq * freqFactorY[0] + basePhase) * 0.8 +
-                                 Math.sin(time * mainFreq * 3.0 * freqFactorY[0] + phase1[0]) * 0.3) *
-                                bounceHeight * amplitudeFactor[0];
-                
-                // 应用平滑过渡，避免抖动看起来卡顿
-                double smoothedY = lastPosY[0] + (yJitter - lastPosY[0]) * smoothFactor;
-                
-                // 更新上一帧Y位置
-                lastPosY[0] = smoothedY;
-                
-                // 应用Y方向位置变换
-                Transformation transformation = textDisplay.getTransformation();
-                transformation.getTranslation().set(0, (float) smoothedY, 0);
-                textDisplay.setTransformation(transformation);
-                
-                tick++;
-                
-                // 每30刻重新计算随机参数，使上下抖动更加自然和随机
-                if (tick % 30 == 0) {
-                    // 重新生成Y方向的随机参数
-                    phase1[0] = Math.random() * 2 * Math.PI;
-                    freqFactorY[0] = 1.2 + Math.random() * 0.6;
-                    amplitudeFactor[0] = 0.5 + Math.random() * 0.5;
-                }
-            }
-        }.runTaskTimer(plugin, 0, 1); // 每个刻更新一次
+    /**
+     * 通过句柄结束实体的显示：取消等待中的延迟回调并注销句柄
+     */
+    private void releaseHandle(GlyphRegistry.Handle handle) {
+        if (!glyphRegistry.unregister(handle)) {
+            return;
+        }
+        TextDisplay textDisplay = handle.getDisplay();
+        animationManager.stop(textDisplay);
+        timingWheel.cancel(handle.getTimer());
+        MessageAudience audience = handle.getMessage();
+        // 实体的预算由将其移出消息的一方归还，避免与观看者刷新重复归还
+        if (audience.removeDisplay(textDisplay)) {
+            glyphBudget.release(audience.getReservation(), 1);
+        }
+        displayPool.release(textDisplay);
+    }
+
+    /**
+     * 移除整条消息：取消时间线上尚未执行的事件并归还所有实体
+     */
+    private void evictMessage(MessageAudience audience, MessageTimeline timeline) {
+        timeline.cancel();
+        for (GlyphRegistry.Handle handle : glyphRegistry.getByMessage(audience)) {
+            releaseHandle(handle);
+        }
+    }
+
+    /**
+     * 缩短整条消息：取消尚未生成的部分，已生成的实体立即快速渐隐
+     */
+    private void shortenMessage(MessageAudience audience, MessageTimeline timeline) {
+        timeline.cancel();
+        List<GlyphRegistry.Handle> liveHandles = glyphRegistry.getByMessage(audience);
+        glyphBudget.shrink(audience.getReservation(), liveHandles.size());
+        for (GlyphRegistry.Handle handle : liveHandles) {
+            timingWheel.cancel(handle.getTimer());
+            animationManager.startFade(handle.getDisplay(), SHORTENED_FADE_TICKS, () -> releaseHandle(handle));
+        }
+    }
+
+    /**
+     * 应用上下抖动动画 - 只保留Y方向的上下移动效果，使用默认高度的实体在重载配置时跟随新的默认值
+     */
+    private void applyBounceAnimation(TextDisplay textDisplay, PlayerPreferences preferences) {
+        animationManager.startBounce(textDisplay, preferences.bounceHeight(), preferences.usesDefaults());
     }
 
     /**
      * 应用物理坠落动画 - 使用直接物理模拟实现重力坠落效果，无需骑乘盔甲架
      */
     private void applyFallAnimation(TextDisplay textDisplay, double unusedFallDuration) {
-        try {
-            Location startLocation = textDisplay.getLocation();
-            org.bukkit.World world = startLocation.getWorld();
-            
-            if (world == null) {
+        final GlyphRegistry.Handle handle = glyphRegistry.get(textDisplay);
+        if (handle == null) {
+            return;
+        }
+        final MessageAudience audience = handle.getMessage();
+        animationManager.startFall(textDisplay, () -> {
+            if (handle.isReleased()) {
                 return;
             }
-            
-            // 保存原始位置和大小
-            Location currentLocation = startLocation.clone();
-            
-            // 保留原始大小
-            Transformation transformation = textDisplay.getTransformation();
-            float originalScale = transformation.getScale().x();
-            
-            // 设置物理参数
-            final double[] velocityX = {(Math.random() - 0.5) * 0.2}; // 初始X速度
-            final double[] velocityY = {0.15}; // 初始Y速度（轻微向上）
-            final double[] velocityZ = {(Math.random() - 0.5) * 0.2}; // 初始Z速度
-            final double gravity = -0.04; // 重力加速度
-            final double friction = 0.98; // 摩擦力系数
-            final double restitution = 0.6; // 弹性系数
-            
-            // 旋转参数
-            final float[] currentXRot = {0};
-            final float[] currentYRot = {0};
-            final float[] currentZRot = {0};
-            
-            // 状态跟踪
-            final boolean[] hasLanded = {false};
-            final int[] noMovementTicks = {0};
-            
-            // 创建物理模拟任务
-            final BukkitTask physicsTask = new BukkitRunnable() {
-                @Override
-                public void run() {
-                    if (textDisplay.isDead() || hasLanded[0]) {
-                        this.cancel();
-                        return;
-                    }
-                    
-                    // 应用重力
-                    velocityY[0] += gravity;
-                    
-                    // 应用摩擦力
-                    velocityX[0] *= friction;
-                    velocityZ[0] *= friction;
-                    
-                    // 计算下一位置
-                    double newX = currentLocation.getX() + velocityX[0];
-                    double newY = currentLocation.getY() + velocityY[0];
-                    double newZ = currentLocation.getZ() + velocityZ[0];
-                    
-                    // 碰撞检测 - X方向
-                    Location blockLocX = new Location(world, Math.floor(newX), Math.floor(currentLocation.getY()), Math.floor(currentLocation.getZ()));
-                    if (world.getBlockAt(blockLocX).getType().isSolid()) {
-                        velocityX[0] = -velocityX[0] * restitution;
-                        newX = currentLocation.getX();
-                    }
-                    
-                    // 碰撞检测 - Z方向
-                    Location blockLocZ = new Location(world, Math.floor(currentLocation.getX()), Math.floor(currentLocation.getY()), Math.floor(newZ));
-                    if (world.getBlockAt(blockLocZ).getType().isSolid()) {
-                        velocityZ[0] = -velocityZ[0] * restitution;
-                        newZ = currentLocation.getZ();
-                    }
-                    
-                    // 碰撞检测 - Y方向（地面检测）
-                    Location blockLocY = new Location(world, Math.floor(newX), Math.floor(newY - 0.1), Math.floor(newZ));
-                    if (world.getBlockAt(blockLocY).getType().isSolid()) {
-                        // 着地或碰撞到方块顶部
-                        if (velocityY[0] < 0) { // 只在下落时处理碰撞
-                            velocityY[0] = -velocityY[0] * restitution * 0.5; // 减小反弹高度
-                            newY = Math.floor(newY - 0.1) + 1.0; // 将位置放在方块顶部
-                        }
-                    }
-                    
-                    // 更新位置
-                    currentLocation.setX(newX);
-                    currentLocation.setY(newY);
-                    currentLocation.setZ(newZ);
-                    textDisplay.teleport(currentLocation);
-                    
-                    // 计算速度大小
-                    double speed = Math.sqrt(
-                        velocityX[0] * velocityX[0] +
-                        velocityY[0] * velocityY[0] +
-                        velocityZ[0] * velocityZ[0]
-                    );
-                    
-                    // 检查是否静止不动
-                    if (speed < 0.03) {
-                        noMovementTicks[0]++;
-                    } else {
-                        noMovementTicks[0] = 0;
-                    }
-                    
-                    // 检查是否着地（速度很小且静止了一段时间，或者位于地面上）
-                    if ((noMovementTicks[0] >= 10) || 
-                        (Math.abs(velocityY[0]) < 0.05 && 
-                        world.getBlockAt(blockLocY).getType().isSolid())) {
-                        
-                        hasLanded[0] = true;
-                        this.cancel();
-                        
-                        // 给字符一个轻微的随机倾斜，让它看起来像是自然地靠在方块上
-                        Transformation finalTrans = textDisplay.getTransformation();
-                        float finalXRot = (float)((Math.random() - 0.5) * 0.2); // 轻微X轴倾斜
-                        float finalZRot = (float)((Math.random() - 0.5) * 0.2); // 轻微Z轴倾斜
-                        finalTrans.getLeftRotation().set(finalXRot, 0, finalZRot, 1.0f);
-                        textDisplay.setTransformation(finalTrans);
-                        
-                        // 自然延迟后渐隐，使效果更真实
-                    final int randomDelay = 150 + (int)(Math.random() * 300); // 7.5-22.5秒延迟
-                    Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                        if (!textDisplay.isDead()) {
-                            // 生成一些粒子效果，表示字符开始消失
-                            spawnParticles(textDisplay.getLocation());
-                            
-                            // 应用渐变消失效果
-                            fadeOutText(textDisplay, 80); // 4秒内渐隐，更平滑
-                        }
-                    }, randomDelay);
-                    return;
-                }
-                    
-                    // 只有在移动时才应用旋转
-                    if (speed > 0.01) {
-                        // 基于速度方向的自然旋转
-                        currentYRot[0] += (float)(velocityX[0] * 0.2); // 左右移动产生Y轴旋转
-                        currentXRot[0] += (float)(velocityZ[0] * 0.2); // 前后移动产生X轴旋转
-                        currentZRot[0] += (float)((Math.random() - 0.5) * 0.02); // 轻微Z轴随机旋转
-                    }
-                    
-                    // 应用物理旋转效果
-                    Transformation t = textDisplay.getTransformation();
-                    
-                    // 计算旋转轴和角度
-                    float rotX = (float)Math.sin(currentXRot[0] * 0.5) * 0.3f;
-                    float rotY = (float)Math.sin(currentYRot[0] * 0.5) * 0.3f;
-                    float rotZ = (float)Math.sin(currentZRot[0] * 0.5) * 0.9f;
-                    float rotAngle = (float)Math.cos(currentXRot[0] * 0.5) + (float)Math.cos(currentYRot[0] * 0.5) + (float)Math.cos(currentZRot[0] * 0.5);
-                    
-                    // 归一化旋转轴
-                    float length = (float)Math.sqrt(rotX*rotX + rotY*rotY + rotZ*rotZ + rotAngle*rotAngle);
-                    if (length > 0) {
-                        rotX /= length;
-                        rotY /= length;
-                        rotZ /= length;
-                        rotAngle /= length;
+            // 自然延迟后渐隐，使效果更真实；停留和渐隐都必须在兜底归还之前结束，
+            // 坠落持续时间仍是实体寿命的上限，剩余时间不够渐隐时保留兜底归还
+            long remaining = timingWheel.getRemainingTicks(handle.getTimer());
+            final int fadeTicks = (int) Math.min(LANDED_FADE_TICKS, remaining / 2);
+            if (fadeTicks <= 0) {
+                return;
+            }
+            final long randomDelay = 150 + (int)(Math.random() * 300); // 7.5-22.5秒延迟
+            final long linger = Math.min(randomDelay, remaining - fadeTicks);
+            replaceTimer(handle, timingWheel.schedule(linger, () -> {
+                if (isLeasedBy(textDisplay, audience)) {
+                    // 生成一些粒子效果，表示字符开始消失
+                    if (qualityGovernor.getTier().allowsParticlesAndSound()) {
+                        spawnParticles(textDisplay.getLocation());
                     }
                     
-                    // 应用旋转
-                    t.getLeftRotation().set(rotX, rotY, rotZ, rotAngle);
-                    
-                    // 保持原始大小不变
-                    t.getScale().set(originalScale, originalScale, originalScale);
-                    
-                    textDisplay.setTransformation(t);
+                    // 应用渐变消失效果
+                    fadeOutText(textDisplay, fadeTicks); // 最多4秒内渐隐，更平滑
                 }
-            }.runTaskTimer(plugin, 0, 1); // 每个刻更新一次
-            
-            // 添加任务到活动任务列表，以便在需要时可以清理
-            UUID entityId = textDisplay.getUniqueId();
-            if (!activeTasks.containsKey(entityId)) {
-                activeTasks.put(entityId, new ArrayList<>());
-            }
-            activeTasks.get(entityId).add(physicsTask);
-            
-            // 添加显示实体到活动显示列表
-            if (!activeDisplays.containsKey(entityId)) {
-                activeDisplays.put(entityId, new ArrayList<>());
-            }
-            activeDisplays.get(entityId).add(textDisplay);
-            
-        } catch (RuntimeException e) {
-            // 静默处理运行时异常
-        }
+            }));
+        });
     }
 
     /**
-     * 文本渐隐效果 - 通过修改文本颜色的透明度，实现平滑的消失效果
+     * 替换实体等待中的延迟回调，先取消旧的回调，保证归还实体时能取消唯一的回调
      */
-    private void fadeOutText(TextDisplay textDisplay, int fadeTicks) {
-        // 存储初始颜色
-        final Color initialColor = textDisplay.getGlowColorOverride() != null ? 
-            textDisplay.getGlowColorOverride() : Color.WHITE;
-        
-        new BukkitRunnable() {
-            private int tick = 0;
+    private void replaceTimer(GlyphRegistry.Handle handle, TimingWheel.Timer timer) {
+        timingWheel.cancel(handle.getTimer());
+        handle.setTimer(timer);
+    }
 
-            @Override
-            public void run() {
-                if (textDisplay.isDead()) {
-                    this.cancel();
-                    return;
-                }
+    /**
+     * 文本渐隐效果 - 通过降低亮度并缩小，实现平滑的消失效果
+     */
+    private void fadeOutText(TextDisplay textDisplay, int fadeTicks) {
+        animationManager.startFade(textDisplay, fadeTicks, () -> releaseDisplay(textDisplay));
+    }
 
-                // 计算透明度因子，从1.0到0.0线性变化
-                float opacity = 1.0f - (float) tick / fadeTicks;
-                
-                if (opacity <= 0) {
-                    opacity = 0;
-                    textDisplay.remove();
-                    this.cancel();
-                    return;
+    /**
+     * 暂停或恢复所有进行中的消息时间线，服务器负载过高（仅聊天）时不再逐字生成新的字符实体，
+     * 已显示的字符实体按原计划坠落和归还
+     */
+    public void setTimelinesPaused(boolean paused) {
+        for (List<MessageTimeline> timelines : activeTimelines.values()) {
+            for (MessageTimeline timeline : timelines) {
+                if (paused) {
+                    timeline.pause();
+                } else {
+                    timeline.resume();
                 }
-                
-                // 通过修改发光颜色的透明度来实现渐隐效果
-                // 使用ARGB值创建新的颜色，保持RGB值不变，只改变A值
-                Color fadeColor = Color.fromRGB(
-                    initialColor.getRed(),
-                    initialColor.getGreen(),
-                    initialColor.getBlue()
-                );
-                
-                textDisplay.setGlowColorOverride(fadeColor);
-                
-                // 同时调整亮度以增强渐隐效果
-                Display.Brightness brightness = new Display.Brightness(
-                    (byte) (opacity * 15), 
-                    (byte) (opacity * 15)
-                );
-                textDisplay.setBrightness(brightness);
-                
-                // 轻微缩小以增强消失感
-                Transformation transformation = textDisplay.getTransformation();
-                float scaleFactor = (float) (opacity * 0.8); // 假设原始比例是0.8
-                transformation.getScale().set(scaleFactor, scaleFactor, scaleFactor);
-                textDisplay.setTransformation(transformation);
-                
-                tick++;
             }
-        }.runTaskTimer(plugin, 0, 1); // 每个刻更新一次
+        }
     }
 
     /**
      * 清理玩家的文本效果
      */
     public void cleanupPlayerEffects(UUID playerId) {
-        // 取消所有任务
-        if (activeTasks.containsKey(playerId)) {
-            activeTasks.get(playerId).forEach(BukkitTask::cancel);
-            activeTasks.remove(playerId);
+        // 取消所有时间线
+        if (activeTimelines.containsKey(playerId)) {
+            activeTimelines.get(playerId).forEach(MessageTimeline::cancel);
+            activeTimelines.remove(playerId);
         }
         
-        // 移除所有显示实体
-        if (activeDisplays.containsKey(playerId)) {
-            activeDisplays.get(playerId).forEach(textDisplay -> {
-                if (textDisplay != null && !textDisplay.isDead()) {
-                    textDisplay.remove();
-                }
-            });
-            activeDisplays.remove(playerId);
+        // 归还所有显示实体
+        for (GlyphRegistry.Handle handle : glyphRegistry.getByPlayer(playerId)) {
+            releaseHandle(handle);
         }
     }
 
+    /**
+     * 清理世界中的文本效果（世界卸载时调用）
+     */
+    public void cleanupWorldEffects(org.bukkit.World world) {
+        for (GlyphRegistry.Handle handle : glyphRegistry.getByWorld(world.getUID())) {
+            releaseHandle(handle);
+        }
+        displayPool.clearWorld(world);
+    }
+
     /**
      * 生成粒子效果
      */
     private void spawnParticles(Location location) {
-        try {
-            String particleType = plugin.getConfig().getString("particle-effects.particle-type", "ENCHANTMENT_TABLE");
-            int count = plugin.getConfig().getInt("particle-effects.particle-count", 3);
-            
-            // 尝试获取粒子枚举
-            org.bukkit.Particle particle = org.bukkit.Particle.valueOf(particleType);
-            location.getWorld().spawnParticle(particle, location, count, 0.1, 0.1, 0.1, 0.01);
-        } catch (Exception e) {
-            // 如果粒子类型无效，使用默认粒子
-            location.getWorld().spawnParticle(org.bukkit.Particle.END_ROD, location, 3, 0.1, 0.1, 0.1, 0.01);
+        // 粒子类型已在加载配置时校验
+        Config.Particles particles = plugin.getSettings().particles();
+        if (particles.enabled() && particles.count() > 0) {
+            location.getWorld().spawnParticle(particles.particle(), location, particles.count(), 0.1, 0.1, 0.1, 0.01);
         }
     }
     
@@ -792,16 +815,58 @@ public class SideTextManager {
      * 清理所有资源
      */
     public void cleanup() {
-        // 取消所有任务
-        activeTasks.values().forEach(tasks -> tasks.forEach(BukkitTask::cancel));
-        activeTasks.clear();
+        activeAudiences.clear();
+        
+        // 取消所有时间线
+        activeTimelines.values().forEach(timelines -> timelines.forEach(MessageTimeline::cancel));
+        activeTimelines.clear();
         
         // 移除所有显示实体
-        activeDisplays.values().forEach(displays -> displays.forEach(textDisplay -> {
-            if (textDisplay != null && !textDisplay.isDead()) {
-                textDisplay.remove();
+        for (GlyphRegistry.Handle handle : glyphRegistry.getAll()) {
+            if (!handle.getDisplay().isDead()) {
+                handle.getDisplay().remove();
             }
-        }));
-        activeDisplays.clear();
+        }
+        glyphRegistry.cleanup();
+        
+        timingWheel.cleanup();
+        orphanSweeper.cleanup();
+        displayPool.cleanup();
+        glyphBudget.cleanup();
+    }
+    
+    /**
+     * 获取字符实体预算
+     */
+    public GlyphBudget getGlyphBudget() {
+        return glyphBudget;
+    }
+    
+    /**
+     * 获取字符实体生命周期登记表
+     */
+    public GlyphRegistry getGlyphRegistry() {
+        return glyphRegistry;
+    }
+    
+    /**
+     * 获取残留实体清扫器
+     */
+    public OrphanSweeper getOrphanSweeper() {
+        return orphanSweeper;
+    }
+    
+    /**
+     * 获取延迟回调时间轮
+     */
+    public TimingWheel getTimingWheel() {
+        return timingWheel;
+    }
+    
+    /**
+     * 获取文本实体对象池
+     */
+    public TextDisplayPool getDisplayPool() {
+        return displayPool;
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package exe.example.miSidetext.managers;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 刷屏限制器 - 每个玩家保存最近 N 条消息时间戳的定长环形缓冲区，N 为刷屏阈值。
+ * 新消息用原子操作占用一个槽位并换出 N 条之前的时间戳，该时间戳仍在检测窗口内即判定为刷屏。
+ * 全程无锁，玩家的缓冲区创建后每条消息不再分配对象，可以在异步聊天线程中并发调用
+ */
+public class SpamLimiter {
+
+    private final Map<UUID, Window> windows = new ConcurrentHashMap<>();
+    private final int threshold; // 检测窗口内允许的消息数
+    private final long windowMillis; // 检测时间窗口（毫秒）
+
+    public SpamLimiter(int threshold, long windowMillis) {
+        this.threshold = Math.max(1, threshold);
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * 记录一条消息并判断是否刷屏（任意线程）
+     * @return 包括本条在内，检测窗口内的消息数是否超过阈值
+     */
+    public boolean record(UUID playerId, long now) {
+        Window window = windows.get(playerId);
+        if (window == null) {
+            window = windows.computeIfAbsent(playerId, id -> new Window(threshold));
+        }
+        return window.record(now, windowMillis);
+    }
+
+    /**
+     * 清空玩家的消息记录，例如禁言后避免重复触发
+     */
+    public void reset(UUID playerId) {
+        windows.remove(playerId);
+    }
+
+    /**
+     * 获取有消息记录的玩家数
+     */
+    public int getTrackedCount() {
+        return windows.size();
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        windows.clear();
+    }
+
+    /**
+     * 单个玩家的时间戳环形缓冲区
+     */
+    private static class Window {
+        private final AtomicLongArray timestamps; // 0表示槽位尚未使用
+        private final AtomicLong sequence = new AtomicLong();
+
+        Window(int size) {
+            this.timestamps = new AtomicLongArray(size);
+        }
+
+        boolean record(long now, long windowMillis) {
+            int slot = (int) (sequence.getAndIncrement() % timestamps.length());
+            long previous = timestamps.getAndSet(slot, now);
+            return previous != 0 && now - previous <= windowMillis;
+        }
+    }
+}
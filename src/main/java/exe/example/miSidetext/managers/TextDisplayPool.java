@@ -0,0 +1,208 @@
+package exe.example.miSidetext.managers;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Color;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.TextDisplay;
+import org.bukkit.util.Transformation;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 文本显示实体对象池 - 按世界缓存已隐藏、已设置好样式的文本实体，在消息之间复用，
+ * 新实体在生成回调中一次性完成样式设置，首个元数据包即为最终状态
+ */
+public class TextDisplayPool {
+
+    private final MiSidetext plugin;
+    private final OrphanSweeper orphanSweeper;
+    // 每个世界的空闲实体，按归还顺序排列
+    private final Map<UUID, ArrayDeque<PooledDisplay>> idleByWorld = new HashMap<>();
+
+    // 配置参数
+    private int maxSizePerWorld; // 每个世界最多缓存的空闲实体数
+    private long idleTimeout; // 空闲实体最长保留时间（毫秒）
+
+    // 统计数据
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public TextDisplayPool(MiSidetext plugin, OrphanSweeper orphanSweeper) {
+        this.plugin = plugin;
+        this.orphanSweeper = orphanSweeper;
+        loadConfig();
+    }
+
+    /**
+     * 加载配置
+     */
+    public void loadConfig() {
+        this.maxSizePerWorld = Math.max(0, plugin.getConfig().getInt("performance.pool.max-size-per-world", 64));
+        this.idleTimeout = (long) (plugin.getConfig().getDouble("performance.pool.idle-timeout", 30.0) * 1000);
+    }
+
+    /**
+     * 获取一个文本实体：优先复用池中的空闲实体，否则生成新实体
+     * @param text 显示的文本（含颜色代码）
+     * @param scale 缩放比例
+     * @param brightness 初始亮度（0-15）
+     */
+    public TextDisplay acquire(World world, Location location, String text, float scale, int brightness) {
+        ArrayDeque<PooledDisplay> idle = idleByWorld.get(world.getUID());
+        while (idle != null && !idle.isEmpty()) {
+            TextDisplay display = idle.pollLast().display;
+            if (!display.isValid()) {
+                // 所在区块已卸载或实体已被移除
+                evictions++;
+                continue;
+            }
+
+            // 实体仍处于隐藏状态，重置后再由观看者显示，客户端收到的是最终状态
+            display.setTeleportDuration(0);
+            display.teleport(location);
+            display.setText(text);
+            display.setBrightness(new Display.Brightness(brightness, brightness));
+            display.setTransformation(createTransformation(scale));
+            hits++;
+            return display;
+        }
+
+        misses++;
+        return world.spawn(location, TextDisplay.class, display -> applyStyle(display, text, scale, brightness));
+    }
+
+    /**
+     * 归还文本实体，调用方需先对所有观看者隐藏该实体
+     */
+    public void release(TextDisplay display) {
+        if (display == null || display.isDead()) {
+            return;
+        }
+
+        ArrayDeque<PooledDisplay> idle = idleByWorld.computeIfAbsent(display.getWorld().getUID(), id -> new ArrayDeque<>());
+        if (!display.isValid() || idle.size() >= maxSizePerWorld) {
+            display.remove();
+            evictions++;
+            return;
+        }
+
+        display.setText("");
+        idle.addLast(new PooledDisplay(display, System.currentTimeMillis()));
+    }
+
+    /**
+     * 清理空闲过久或已失效的实体
+     */
+    public void trim() {
+        long now = System.currentTimeMillis();
+        for (ArrayDeque<PooledDisplay> idle : idleByWorld.values()) {
+            Iterator<PooledDisplay> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                PooledDisplay pooled = iterator.next();
+                if (!pooled.display.isValid() || now - pooled.releasedAt > idleTimeout) {
+                    pooled.display.remove();
+                    iterator.remove();
+                    evictions++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除指定世界的所有空闲实体（世界卸载时调用）
+     */
+    public void clearWorld(World world) {
+        ArrayDeque<PooledDisplay> idle = idleByWorld.remove(world.getUID());
+        if (idle != null) {
+            idle.forEach(pooled -> pooled.display.remove());
+        }
+    }
+
+    /**
+     * 应用完整样式，在实体加入世界前执行
+     */
+    private void applyStyle(TextDisplay textDisplay, String text, float scale, int brightness) {
+        // 默认隐藏，只向收到消息的玩家显示
+        textDisplay.setVisibleByDefault(false);
+        // 不保存到世界，并标记为本插件的字符实体
+        orphanSweeper.tag(textDisplay);
+
+        textDisplay.setText(text);
+        textDisplay.setBillboard(Display.Billboard.CENTER); // 始终面向玩家
+        textDisplay.setBrightness(new Display.Brightness(brightness, brightness));
+        textDisplay.setInterpolationDuration(20); // 平滑过渡
+
+        // 移除半透明黑色边框
+        textDisplay.setShadowRadius(0.0f); // 禁用阴影半径
+        textDisplay.setShadowStrength(0.0f); // 禁用阴影强度
+
+        // 实现紫底白边效果
+        textDisplay.setSeeThrough(false);
+        textDisplay.setGlowing(true); // 启用发光效果
+        textDisplay.setGlowColorOverride(Color.PURPLE); // 紫色背景效果
+
+        textDisplay.setTransformation(createTransformation(scale));
+    }
+
+    /**
+     * 创建只包含缩放的初始变换
+     */
+    private Transformation createTransformation(float scale) {
+        return new Transformation(new Vector3f(), new Quaternionf(), new Vector3f(scale, scale, scale), new Quaternionf());
+    }
+
+    /**
+     * 获取当前池中空闲实体总数
+     */
+    public int getPooledCount() {
+        int count = 0;
+        for (ArrayDeque<PooledDisplay> idle : idleByWorld.values()) {
+            count += idle.size();
+        }
+        return count;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * 获取命中率（0-1）
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        idleByWorld.values().forEach(idle -> idle.forEach(pooled -> pooled.display.remove()));
+        idleByWorld.clear();
+    }
+
+    /**
+     * 池中的空闲实体及其归还时间
+     */
+    private record PooledDisplay(TextDisplay display, long releasedAt) {
+    }
+}
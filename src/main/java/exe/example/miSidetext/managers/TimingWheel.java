@@ -0,0 +1,243 @@
+package exe.example.miSidetext.managers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import exe.example.miSidetext.MiSidetext;
+
+/**
+ * 哈希时间轮 - 插件内部的长延迟回调（着地后的渐隐延迟、坠落后的归还等）都挂在时间轮上，
+ * 由一个每tick任务推进，插入和取消都是O(1)，不占用服务器调度器的队列
+ */
+public class TimingWheel {
+
+    private final MiSidetext plugin;
+    private final Timer[] buckets; // 每个槽位是一个双向链表的头节点
+    private final int mask;
+    // 当前tick到期的定时器，复用以避免每tick分配
+    private final List<Timer> due = new ArrayList<>();
+    private long currentTick = 0;
+    private BukkitTask tickTask;
+
+    // 统计数据
+    private int pendingCount = 0;
+    private long firedCount = 0;
+    private long cancelledCount = 0;
+    private double averageLagMillis = 0; // 回调实际执行时间相对预期时间的延迟（毫秒）
+    private long peakLagMillis = 0;
+
+    public TimingWheel(MiSidetext plugin) {
+        this.plugin = plugin;
+        int slots = plugin.getConfig().getInt("performance.timing-wheel.slots", 512);
+        // 槽位数取不小于配置值的2的幂，以便用位运算取模
+        int size = Integer.highestOneBit(Math.max(16, slots - 1)) << 1;
+        this.buckets = new Timer[size];
+        this.mask = size - 1;
+
+        // 启动推进任务
+        startTickTask();
+    }
+
+    /**
+     * 启动推进任务，每个tick推进一个槽位
+     */
+    private void startTickTask() {
+        tickTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                advance();
+            }
+        }.runTaskTimer(plugin, 1, 1);
+    }
+
+    /**
+     * 在指定tick数之后执行回调
+     * @return 定时器，可用于取消
+     */
+    public Timer schedule(long delayTicks, Runnable action) {
+        long delay = Math.max(1, delayTicks);
+        Timer timer = new Timer(action, currentTick + delay, System.currentTimeMillis() + delay * 50);
+        timer.rounds = (delay - 1) >> Integer.numberOfTrailingZeros(buckets.length);
+
+        // 插入到对应槽位的链表头部
+        int index = (int) (timer.deadline & mask);
+        Timer head = buckets[index];
+        timer.next = head;
+        if (head != null) {
+            head.prev = timer;
+        }
+        buckets[index] = timer;
+        timer.bucket = index;
+        pendingCount++;
+        return timer;
+    }
+
+    /**
+     * 取消定时器
+     */
+    public void cancel(Timer timer) {
+        if (timer == null || timer.cancelled) {
+            return;
+        }
+        // 已摘出但尚未执行的定时器只做标记
+        timer.cancelled = true;
+        if (timer.bucket >= 0) {
+            unlink(timer);
+            cancelledCount++;
+        }
+    }
+
+    /**
+     * 获取定时器距到期还剩的tick数，已执行或已取消时返回0
+     */
+    public long getRemainingTicks(Timer timer) {
+        if (timer == null || timer.cancelled || timer.bucket < 0) {
+            return 0;
+        }
+        return Math.max(0, timer.deadline - currentTick);
+    }
+
+    /**
+     * 从所在槽位的链表中移除
+     */
+    private void unlink(Timer timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            buckets[timer.bucket] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.bucket = -1;
+        pendingCount--;
+    }
+
+    /**
+     * 推进一个tick，执行当前槽位中已到期的回调
+     */
+    private void advance() {
+        currentTick++;
+        int index = (int) (currentTick & mask);
+        long now = System.currentTimeMillis();
+
+        // 先摘出到期的定时器，再执行回调，回调中可以安全地插入或取消其他定时器
+        Timer timer = buckets[index];
+        while (timer != null) {
+            Timer next = timer.next;
+            if (timer.rounds > 0) {
+                timer.rounds--;
+            } else {
+                unlink(timer);
+                due.add(timer);
+            }
+            timer = next;
+        }
+
+        for (Timer expired : due) {
+            if (expired.cancelled) {
+                cancelledCount++;
+                continue;
+            }
+            firedCount++;
+            long lag = Math.max(0, now - expired.expectedAt);
+            averageLagMillis = firedCount == 1 ? lag : averageLagMillis * 0.95 + lag * 0.05;
+            peakLagMillis = Math.max(peakLagMillis, lag);
+            try {
+                expired.action.run();
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("时间轮回调执行失败: " + e.getMessage());
+            }
+        }
+        due.clear();
+    }
+
+    /**
+     * 获取等待中的回调数
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * 获取非空槽位数
+     */
+    public int getOccupiedSlots() {
+        int count = 0;
+        for (Timer head : buckets) {
+            if (head != null) count++;
+        }
+        return count;
+    }
+
+    public int getSlotCount() {
+        return buckets.length;
+    }
+
+    public long getFiredCount() {
+        return firedCount;
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    /**
+     * 获取回调平均延迟（毫秒）
+     */
+    public double getAverageLagMillis() {
+        return averageLagMillis;
+    }
+
+    /**
+     * 获取回调峰值延迟（毫秒）
+     */
+    public long getPeakLagMillis() {
+        return peakLagMillis;
+    }
+
+    /**
+     * 清理所有资源
+     */
+    public void cleanup() {
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+        Arrays.fill(buckets, null);
+        pendingCount = 0;
+    }
+
+    /**
+     * 时间轮上的单个定时器
+     */
+    public static class Timer {
+        private final Runnable action;
+        private final long deadline; // 到期的时间轮tick
+        private final long expectedAt; // 预期执行时间（毫秒）
+        private long rounds; // 还需经过的整圈数
+        private int bucket = -1; // 所在槽位，-1表示已执行或已取消
+        private boolean cancelled = false;
+        private Timer prev;
+        private Timer next;
+
+        Timer(Runnable action, long deadline, long expectedAt) {
+            this.action = action;
+            this.deadline = deadline;
+            this.expectedAt = expectedAt;
+        }
+
+        /**
+         * 是否仍在等待执行
+         */
+        public boolean isPending() {
+            return bucket >= 0;
+        }
+    }
+}
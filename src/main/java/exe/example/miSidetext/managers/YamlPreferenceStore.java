@@ -0,0 +1,85 @@
+package exe.example.miSidetext.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+/**
+ * 每个玩家一个YAML文件的偏好设置存储（preferences/&lt;uuid&gt;.yml）
+ */
+public class YamlPreferenceStore implements PreferenceStore {
+
+    private final File folder;
+
+    public YamlPreferenceStore(File folder) {
+        this.folder = folder;
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+    }
+
+    @Override
+    public PlayerPreferences load(UUID playerId, PlayerPreferences defaults) {
+        File file = new File(folder, playerId + ".yml");
+        if (!file.exists()) {
+            return defaults;
+        }
+        return read(file, defaults);
+    }
+
+    /**
+     * 解析单个偏好设置文件，迁移时也直接使用
+     */
+    static PlayerPreferences read(File file, PlayerPreferences defaults) {
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+
+        ChatManager.ChatChannel channel;
+        try {
+            channel = ChatManager.ChatChannel.valueOf(config.getString("default-channel", defaults.defaultChannel().name()));
+        } catch (IllegalArgumentException e) {
+            // 如果通道名称无效，使用默认通道
+            channel = defaults.defaultChannel();
+        }
+
+        return new PlayerPreferences(
+            config.getBoolean("enabled", defaults.enabled()),
+            config.getLong("typing-speed", defaults.typingSpeed()),
+            config.getDouble("bounce-height", defaults.bounceHeight()),
+            config.getDouble("fall-duration", defaults.fallDuration()),
+            channel,
+            "LEFT_TO_RIGHT".equals(config.getString("reading-direction", defaults.leftToRight() ? "LEFT_TO_RIGHT" : "RIGHT_TO_LEFT")));
+    }
+
+    /**
+     * 先写入临时文件再重命名，中途失败不会留下不完整的文件
+     */
+    @Override
+    public void save(UUID playerId, PlayerPreferences preferences) throws IOException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("enabled", preferences.enabled());
+        config.set("typing-speed", preferences.typingSpeed());
+        config.set("bounce-height", preferences.bounceHeight());
+        config.set("fall-duration", preferences.fallDuration());
+        config.set("default-channel", preferences.defaultChannel().name());
+        config.set("reading-direction", preferences.leftToRight() ? "LEFT_TO_RIGHT" : "RIGHT_TO_LEFT");
+
+        File target = new File(folder, playerId + ".yml");
+        File temp = new File(folder, playerId + ".yml.tmp");
+        Files.write(temp.toPath(), config.saveToString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public String getName() {
+        return "YAML";
+    }
+
+    @Override
+    public void close() {
+    }
+}